@@ -0,0 +1,82 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트
+ * -> in-memory H2를 memberCount 만큼의 회원으로 채운 뒤 repository bean을 꺼내 쓴다.
+ * -> 회원은 TEAM_COUNT개 팀에 고르게 나뉘고, 나이는 0 ~ 99
+ */
+@State(Scope.Benchmark)
+public class MemberDataState {
+    static final int TEAM_COUNT = 100;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int memberCount;
+
+    public MemberJpaRepository memberJpaRepository;
+    public MemberRepository memberRepository;
+    public MemberTestRepository memberTestRepository;
+    public MemberSearchCondition condition;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = start(memberCount);
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberTestRepository = context.getBean(MemberTestRepository.class);
+
+        // 팀 하나(1%) + 나이 범위(6%) -> 전체의 약 0.06%
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(35);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static ConfigurableApplicationContext start(int memberCount) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=bench", // local 프로필의 InitMember 제외
+                        "--spring.datasource.hikari.jdbc-url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "--decorator.datasource.enabled=false", // p6spy 제외
+                        "--member.search.result-cache.enabled=false", // 매번 쿼리를 실행하도록
+                        "--member.search.count-cache.enabled=false", // 검색 조건별 count 캐시(MemberSearchCountCache)도 사용하지 않는다.
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--logging.level.org.hibernate.SQL=warn");
+
+        seed(context.getBean(JdbcTemplate.class), memberCount);
+        return context;
+    }
+
+    // 엔티티를 거치지 않고 H2의 system_range로 한 번에 넣는다.
+    private static void seed(JdbcTemplate jdbcTemplate, int memberCount) {
+        jdbcTemplate.update("insert into team (team_id, name) " +
+                "select x, 'team' || x from system_range(1, ?)", TEAM_COUNT);
+        jdbcTemplate.update("insert into member (member_id, username, age, team_id) " +
+                "select x, 'member' || x, mod(x, 100), mod(x, ?) + 1 from system_range(1, ?)", TEAM_COUNT, memberCount);
+        jdbcTemplate.execute("analyze");
+    }
+}
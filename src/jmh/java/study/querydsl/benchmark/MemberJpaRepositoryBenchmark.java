@@ -0,0 +1,34 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동적 쿼리: where 다중 파라미터(search) vs BooleanBuilder(searchByBuilder)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberJpaRepositoryBenchmark {
+
+    @Benchmark
+    public List<MemberTeamDto> search(MemberDataState state) {
+        return state.memberJpaRepository.search(state.condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder(MemberDataState state) {
+        return state.memberJpaRepository.searchByBuilder(state.condition);
+    }
+}
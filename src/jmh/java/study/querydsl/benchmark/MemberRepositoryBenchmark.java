@@ -0,0 +1,55 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 페이징: content + count 항상 조회(searchPageSimple) vs 가능하면 count 생략(searchPageComplex)
+ * -> 조건 없이 전체를 페이징해서 페이지 깊이에 따른 차이를 본다.
+ * -> 쿼리 모양만 비교하도록 count 캐시, 검색 결과 캐시는 끈다. (MemberDataState)
+ *    searchPageComplex도 마지막 페이지가 아니면 매번 count를 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberRepositoryBenchmark {
+    @Param({"0", "100", "5000"})
+    public int page;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        pageable = PageRequest.of(page, 20);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple(MemberDataState state) {
+        return state.memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex(MemberDataState state) {
+        return state.memberRepository.searchPageComplex(condition, pageable);
+    }
+}
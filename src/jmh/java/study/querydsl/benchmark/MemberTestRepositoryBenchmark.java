@@ -0,0 +1,51 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import study.querydsl.entity.Member;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Querydsl4RepositorySupport: content query로 count(applyPagination) vs count query 분리(applyPagination2)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberTestRepositoryBenchmark {
+    @Param({"0", "100"})
+    public int page;
+
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        pageable = PageRequest.of(page, 20, Sort.by("username"));
+    }
+
+    @Benchmark
+    public Page<Member> applyPagination(MemberDataState state) {
+        return state.memberTestRepository.applyPagination(state.condition, pageable);
+    }
+
+    @Benchmark
+    public Page<Member> applyPagination2(MemberDataState state) {
+        return state.memberTestRepository.applyPagination2(state.condition, pageable);
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 엔티티 10만 건 조회: 일반 트랜잭션 vs 읽기 전용(readOnly 트랜잭션 + org.hibernate.readOnly 힌트)
+ * -> 일반 트랜잭션은 엔티티마다 스냅샷을 만들고, 커밋할 때 10만 건 전부 dirty check를 한다.
+ * -> 메모리(스냅샷) 차이는 gc 프로파일러의 gc.alloc.rate.norm (B/op)로 확인
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadOnlyQueryBenchmark {
+    @Param({"100000"})
+    public int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private TransactionTemplate readWriteTx;
+    private TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = MemberDataState.start(memberCount);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWriteTx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer readWrite() {
+        return readWriteTx.execute(status -> {
+            List<Member> result = queryFactory
+                    .selectFrom(member)
+                    .fetch();
+            return result.size(); // 커밋 시 flush -> 10만 건 dirty check
+        });
+    }
+
+    @Benchmark
+    public Integer readOnly() {
+        return readOnlyTx.execute(status -> {
+            List<Member> result = queryFactory
+                    .selectFrom(member)
+                    .setHint(QueryHints.READ_ONLY, true)
+                    .fetch();
+            return result.size(); // FlushMode.MANUAL -> 커밋 시 flush 없음
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 결과(List<MemberTeamDto>) 직렬화: json vs cbor vs smile
+ * -> 시간은 벤치마크 결과로, 크기(bytes)는 setup 에서 한 번 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"10000"})
+    public int rows;
+
+    private List<MemberTeamDto> members;
+    private ObjectWriter json;
+    private ObjectWriter cbor;
+    private ObjectWriter smile;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % 100 + 1;
+            members.add(new MemberTeamDto((long) i, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+
+        json = new ObjectMapper().writerFor(List.class);
+        cbor = new ObjectMapper(new CBORFactory()).writerFor(List.class);
+        smile = new ObjectMapper(new SmileFactory()).writerFor(List.class); // 반복되는 필드명, 짧은 문자열을 참조로 저장
+
+        System.out.printf("%n%d rows: json %d bytes, cbor %d bytes, smile %d bytes%n", rows,
+                json.writeValueAsBytes(members).length,
+                cbor.writeValueAsBytes(members).length,
+                smile.writeValueAsBytes(members).length);
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return json.writeValueAsBytes(members);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws JsonProcessingException {
+        return cbor.writeValueAsBytes(members);
+    }
+
+    @Benchmark
+    public byte[] smile() throws JsonProcessingException {
+        return smile.writeValueAsBytes(members);
+    }
+}
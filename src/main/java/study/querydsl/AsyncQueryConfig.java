@@ -0,0 +1,58 @@
+package study.querydsl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@Configuration
+public class AsyncQueryConfig {
+
+    /**
+     * Executor 빈(memberQueryExecutor)이 있으면 spring boot가 applicationTaskExecutor를 만들지 않으므로 직접 등록한다.
+     * -> @Async, mvc 비동기 요청은 기존처럼 이 executor를 사용한다. (memberQueryExecutor를 쓰지 않도록)
+     */
+    @Lazy
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * MemberAsyncController 전용 조회 스레드 풀 (bulkhead)
+     * -> 느린 검색이 몰려도 이 풀과 큐만 차고, tomcat 스레드와 다른 api는 영향을 받지 않는다.
+     * -> 큐까지 가득 차면 바로 거절한다. (503)
+     * -> 큐 길이, active 스레드 수는 spring boot가 executor.queued, executor.active{name=memberQueryExecutor}로 노출
+     * -> 주입할 때는 @Qualifier("memberQueryExecutor")
+     */
+    @Bean
+    @Qualifier("memberQueryExecutor")
+    public ThreadPoolTaskExecutor memberQueryExecutor(MeterRegistry registry,
+                                                      @Value("${member.async.pool-size:8}") int poolSize,
+                                                      @Value("${member.async.queue-capacity:50}") int queueCapacity) {
+        Counter rejected = Counter.builder("member.query.executor.rejected")
+                .description("memberQueryExecutor가 가득 차서 거절한 요청 수")
+                .register(registry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("member-query-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("memberQueryExecutor is full");
+        });
+        return executor;
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.support.MemberDataChangeListener;
+import study.querydsl.repository.support.MemberTableWriteInspector;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    // member, team 쓰기를 감지해서 캐시를 비우도록 hibernate에 StatementInspector 등록
+    @Bean
+    public HibernatePropertiesCustomizer memberTableWriteInspector(ObjectProvider<MemberDataChangeListener> listeners) {
+        MemberTableWriteInspector inspector = new MemberTableWriteInspector(listeners);
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+}
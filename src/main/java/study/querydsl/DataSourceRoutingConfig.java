@@ -0,0 +1,68 @@
+package study.querydsl;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import study.querydsl.datasource.DataSourceRoutingProperties;
+import study.querydsl.datasource.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datasource.routing.enabled=true 이면 읽기 전용 트랜잭션을 replica로 보낸다. (ReplicaRoutingDataSource)
+ * -> primary는 기존 spring.datasource.hikari 설정을 그대로 사용한다.
+ * -> spring.jpa.open-in-view=false 여야 한다. (켜져 있으면 시작하지 않는다)
+ *    open-in-view는 요청 동안 EntityManager를 열어 두고, hibernate는 처음 가져온 커넥션을 요청이 끝날 때까지 사용한다.
+ *    (DELAYED_ACQUISITION_AND_HOLD) 그러면 요청의 첫 트랜잭션이 읽기 전용일 때 이후 쓰기도 replica 커넥션으로 간다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceRoutingConfig {
+
+    public DataSourceRoutingConfig(@Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("datasource.routing.enabled=true requires spring.jpa.open-in-view=false"
+                    + " (routing is decided per transaction, open-in-view holds one connection per request)");
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceRoutingProperties properties) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            HikariConfig config = properties.getReplicas().get(i);
+            config.setPoolName("replica-" + i);
+            config.setReadOnly(true);
+            replicas.add(new HikariDataSource(config));
+        }
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                properties.getSelection(), properties.getMaxLag(), properties.getLagQuery());
+        routingDataSource.startHealthCheck(properties.getHealthCheckInterval());
+        return routingDataSource;
+    }
+
+    @Primary
+    @Bean
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        // 트랜잭션의 readOnly 설정이 끝난 뒤(첫 쿼리 시점)에 커넥션을 가져오도록 지연
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,53 @@
+package study.querydsl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.MemberSearchQueries;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+@Configuration
+public class MetricsConfig {
+
+    // 검색 조건 조합별 JPQL 캐시 hit/miss
+    @Bean
+    public MeterBinder memberSearchQueriesMetrics(MemberSearchQueries memberSearchQueries) {
+        return registry -> {
+            FunctionCounter.builder("member.search.jpql.cache", memberSearchQueries, MemberSearchQueries::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("member.search.jpql.cache", memberSearchQueries, MemberSearchQueries::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+        };
+    }
+
+    // 2차 캐시 리전별 hit ratio (hit/miss 수는 spring boot가 hibernate.second.level.cache.requests로 노출)
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory emf) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : List.of("member", "team")) {
+                Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics,
+                                stats -> hitRatio(stats.getDomainDataRegionStatistics(region)))
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double hitRatio(CacheRegionStatistics regionStatistics) {
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+        long requests = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) regionStatistics.getHitCount() / requests;
+    }
+}
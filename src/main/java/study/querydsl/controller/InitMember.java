@@ -1,6 +1,7 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
@@ -12,7 +13,7 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
-@Profile("local")
+@Profile({"local", "loadtest"}) // loadtest: MemberControllerLoadTest
 @Component
 @RequiredArgsConstructor
 public class InitMember {
@@ -23,22 +24,57 @@ public class InitMember {
         initMemberService.init();
     }
 
+    /**
+     * init.member-count 명의 회원을 init.team-count 개의 팀에 나눠서 넣는다. (기본값: 회원 100명, 팀 2개)
+     * -> sequence(pooled) + hibernate.jdbc.batch_size + order_inserts 로 insert를 batch로 묶어서 보낸다.
+     * -> batch 사이즈마다 flush/clear 해서 영속성 컨텍스트에 엔티티가 쌓이지 않게 한다.
+     * -> 대량으로 넣을 때는 sql 로그(org.hibernate.SQL, p6spy)를 끄는 것이 좋다.
+     */
     @Component
     static class InitMemberService {
         @PersistenceContext
         private EntityManager em;
 
+        @Value("${init.member-count:100}")
+        private int memberCount;
+
+        @Value("${init.team-count:2}")
+        private int teamCount;
+
+        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:1000}")
+        private int batchSize;
+
         @Transactional
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i, i, selectedTeam));
+            long[] teamIds = new long[teamCount];
+            for (int i = 0; i < teamCount; i++) {
+                Team team = new Team(teamName(i));
+                em.persist(team);
+                teamIds[i] = team.getId(); // sequence 방식이라 persist 시점에 id가 할당된다.
+                flushAndClear(i + 1);
+            }
+            em.flush();
+            em.clear();
+
+            for (int i = 0; i < memberCount; i++) {
+                // changeTeam()을 쓰면 팀의 members 컬렉션에 회원이 계속 쌓이므로 팀은 프록시로만 연결한다.
+                Member member = new Member("member" + i, i % 100);
+                member.setTeam(em.getReference(Team.class, teamIds[i % teamCount]));
+                em.persist(member);
+                flushAndClear(i + 1);
             }
         }
+
+        private void flushAndClear(int count) {
+            if (count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+
+        // teamA, teamB, ... teamZ 이후는 team26, team27, ...
+        private static String teamName(int index) {
+            return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+        }
     }
 }
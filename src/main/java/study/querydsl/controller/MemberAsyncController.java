@@ -0,0 +1,114 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBatchLoader;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * MemberController의 검색 api를 비동기로 처리한다.
+ * -> 쿼리는 tomcat 스레드가 아닌 memberQueryExecutor(bulkhead)에서 실행하고, tomcat 스레드는 바로 반환된다.
+ * -> member.async.timeout 안에 끝나지 않거나 executor가 가득 차면 503
+ *    타임아웃이 나면 작업을 취소(interrupt)하고, 쿼리도 같은 시간의 트랜잭션 timeout(jpa query timeout)으로 중단된다.
+ * -> id 조회는 MemberBatchLoader가 동시에 들어온 요청의 id를 모아서 IN 쿼리 한 번으로 조회한다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberAsyncController {
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final MemberBatchLoader memberBatchLoader;
+    @Qualifier("memberQueryExecutor")
+    private final ThreadPoolTaskExecutor memberQueryExecutor;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${member.async.timeout:3s}")
+    private Duration timeout;
+
+    @GetMapping("/async/v1/members")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition) {
+        return submit(() -> memberJpaRepository.search(condition));
+    }
+
+    @GetMapping("/async/v2/members")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+        return submit(() -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    @GetMapping("/async/v3/members")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+        return submit(() -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @GetMapping("/async/members/{id}")
+    public CompletableFuture<ResponseEntity<MemberTeamDto>> findMember(@PathVariable Long id) {
+        // http://localhost:8080/async/members/1
+        return memberBatchLoader.load(id)
+                .copy() // 같은 id를 기다리는 요청들이 future를 공유하므로 timeout은 이 요청의 복사본에만 건다.
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(member -> ResponseEntity.of(Optional.ofNullable(member).map(MemberAsyncController::toDto))); // 없으면 404
+    }
+
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    public ResponseEntity<Void> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    private static MemberTeamDto toDto(Member member) {
+        Team team = member.getTeam(); // fetch join 되어 있음
+        return new MemberTeamDto(member.getId(), member.getUsername(), member.getAge(),
+                team != null ? team.getId() : null, team != null ? team.getName() : null);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query) {
+        // 트랜잭션 timeout -> 이 트랜잭션에서 만드는 jpa 쿼리에 남은 시간만큼 javax.persistence.query.timeout 힌트가 붙는다.
+        TransactionTemplate queryTx = new TransactionTemplate(transactionManager);
+        queryTx.setReadOnly(true);
+        queryTx.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = memberQueryExecutor.submit(() -> {
+            try {
+                result.complete(queryTx.execute(status -> query.get()));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, e) -> {
+                    if (e instanceof TimeoutException) {
+                        task.cancel(true); // 큐에서 기다리는 작업은 실행되지 않고, 실행 중이면 interrupt
+                    }
+                });
+    }
+}
@@ -1,22 +1,57 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.InvalidCursorException;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.UsernameSuggestIndex;
+import study.querydsl.repository.support.MemberDataVersion;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberDataVersion dataVersion;
+    private final UsernameSuggestIndex suggestIndex;
+
+    @Value("${member.stream.fetch-size:1000}")
+    private int streamFetchSize;
+
+    @Value("${member.keyset.max-size:100}")
+    private int keysetMaxSize;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
@@ -24,14 +59,96 @@ public class MemberController {
         return memberJpaRepository.search(condition);
     }
 
+    /**
+     * 검색 결과 전체를 NDJSON(한 줄에 회원 하나)으로 내려준다.
+     * -> 결과를 List로 모으지 않고 읽는 대로 응답에 쓰므로 건수가 많아도 heap 사용량이 일정하다.
+     * -> stream을 다 쓸 때까지 커넥션이 필요하므로 읽기 전용 트랜잭션 안에서 처리한다.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/v1/members/stream", produces = "application/x-ndjson")
+    public void searchMemberV1Stream(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        // http://localhost:8080/v1/members/stream?teamName=teamB
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class);
+        OutputStream out = response.getOutputStream();
+        try (Stream<MemberTeamDto> members = memberJpaRepository.searchStream(condition, streamFetchSize)) {
+            Iterator<MemberTeamDto> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 이전 응답의 ETag를 If-None-Match로 보내면, 그 사이 member/team 쓰기가 없었을 때 조회 없이 304를 돌려준다.
+     * -> 응답 형식(json, cbor, smile)이 Accept로 정해지므로 ETag에 Accept를 넣고 Vary: Accept를 보낸다.
+     */
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                              WebRequest request, HttpServletResponse response) {
         // http://localhost:8080/v2/members?size=5&page=2 *page는 0부터 시작
+        if (request.checkNotModified(etag(request, response, "v2", condition.normalized(), pageable))) {
+            return null; // 304
+        }
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "true") boolean exact,
+                                              WebRequest request, HttpServletResponse response) {
+        if (request.checkNotModified(etag(request, response, "v3", condition.normalized(), pageable, exact))) {
+            return null; // 304
+        }
+        if (!exact) { // 결과가 많으면 total을 추정값으로 (응답의 exact=false)
+            return memberRepository.searchPageEstimated(condition, pageable);
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    // 같은 조건이라도 Accept(응답 형식)가 다르면 다른 ETag, 공유 캐시도 Accept별로 저장하도록 Vary
+    private String etag(WebRequest request, HttpServletResponse response, Object... params) {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        Object[] etagParams = Arrays.copyOf(params, params.length + 1);
+        etagParams[params.length] = request.getHeader(HttpHeaders.ACCEPT);
+        return dataVersion.etag(etagParams);
+    }
+
+    @GetMapping("/v4/members")
+    public CursorPage<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    @RequestParam(defaultValue = "id") String orderBy) {
+        // http://localhost:8080/v4/members?size=5&orderBy=age -> 다음 페이지는 응답의 nextCursor를 cursor로 넘긴다.
+        // orderBy는 첫 페이지에서만 사용 (이후에는 cursor에 정렬 키가 들어 있음)
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size는 1 이상이어야 합니다.");
+        }
+        size = Math.min(size, keysetMaxSize); // 최대 member.keyset.max-size개
+        if (!hasText(cursor) && "age".equals(orderBy)) {
+            cursor = MemberCursor.first(MemberCursor.Key.AGE_ID).encode();
+        }
+        return memberRepository.searchKeyset(condition, cursor, size);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> invalidCursor(InvalidCursorException e) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(e.getMessage());
+    }
+
+    /**
+     * username 자동완성: prefix로 시작하는 username을 사전순으로 limit개 (db 조회 없이 메모리 인덱스에서)
+     */
+    @GetMapping("/members/suggest")
+    public List<String> suggestUsername(@RequestParam String prefix,
+                                        @RequestParam(defaultValue = "10") int limit) {
+        // http://localhost:8080/members/suggest?prefix=member1&limit=5
+        return suggestIndex.suggest(prefix, limit);
+    }
 }
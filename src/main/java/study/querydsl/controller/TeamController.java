@@ -0,0 +1,24 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.TeamStats;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamStats teamStats;
+
+    /**
+     * 팀별 회원 수, 나이 합계/평균/최소/최대 (member를 group by 하지 않고 read model에서)
+     */
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        // http://localhost:8080/teams/stats
+        return teamStats.findAll();
+    }
+}
@@ -0,0 +1,157 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica로, 나머지는 primary로 보낸다.
+ * -> 트랜잭션 시작 시점에는 readOnly 여부가 아직 설정되지 않으므로 LazyConnectionDataSourceProxy로 감싸서 사용해야 한다.
+ *    (실제 커넥션은 첫 번째 쿼리를 실행할 때 가져온다)
+ * -> replica는 주기적으로 상태를 확인하고, 접속이 안 되거나 지연(lag)이 maxLag 보다 크면 제외한다.
+ *    사용 가능한 replica가 없으면 primary로 보낸다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS // HikariDataSource의 active connection 수 기준
+    }
+
+    private static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Selection selection;
+    private final Duration maxLag;
+    private final String lagQuery;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param lagQuery replica 지연을 초 단위로 반환하는 쿼리, null 이면 접속 여부만 확인한다.
+     *                 (예: postgres -> select extract(epoch from now() - pg_last_xact_replay_timestamp()))
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                    Selection selection, Duration maxLag, String lagQuery) {
+        this.selection = selection;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targetDataSources.put(replica.key, replica.dataSource);
+        }
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+
+        Replica replica = select();
+        return replica != null ? replica.key : PRIMARY;
+    }
+
+    private Replica select() {
+        List<Replica> healthy = replicas.stream()
+                .filter(replica -> replica.healthy)
+                .collect(Collectors.toList());
+        if (healthy.isEmpty()) {
+            return null;
+        }
+
+        if (selection == Selection.LEAST_CONNECTIONS) {
+            return healthy.stream()
+                    .min(Comparator.comparingInt(Replica::activeConnections))
+                    .get();
+        }
+        return healthy.get(Math.floorMod(sequence.getAndIncrement(), healthy.size()));
+    }
+
+    public void startHealthCheck(Duration interval) {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-health-"));
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy = isHealthy(replica);
+            if (replica.healthy != healthy) {
+                log.warn("{} healthy: {} -> {}", replica.key, replica.healthy, healthy);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    private boolean isHealthy(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (lagQuery == null) {
+                return connection.isValid(1);
+            }
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                double lagSeconds = resultSet.next() ? resultSet.getDouble(1) : 0;
+                return lagSeconds * 1000 <= maxLag.toMillis();
+            }
+        } catch (SQLException e) {
+            log.debug("{} health check failed", replica.key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof HikariDataSource) {
+                ((HikariDataSource) replica.dataSource).close();
+            }
+        }
+    }
+
+    private static class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true; // 첫 번째 확인 전까지는 사용 가능으로 본다.
+
+        Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+
+        int activeConnections() {
+            if (dataSource instanceof HikariDataSource && ((HikariDataSource) dataSource).getHikariPoolMXBean() != null) {
+                return ((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * total이 추정값일 수 있는 페이지
+ * -> exact=false 이면 totalElements, totalPages는 샘플링으로 추정한 값이다. ("약 320만 건")
+ */
+@Getter
+public class EstimatedPage<T> extends PageImpl<T> {
+    private final boolean exact;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean exact) {
+        super(content, pageable, total);
+        this.exact = exact;
+    }
+}
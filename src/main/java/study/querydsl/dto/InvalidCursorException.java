@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+/**
+ * 잘못되었거나 변조된 keyset 커서 (MemberCursor.decode) -> 400
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String token) {
+        super("잘못된 커서입니다: " + token);
+    }
+
+    public InvalidCursorException(String token, Throwable cause) {
+        super("잘못된 커서입니다: " + token, cause);
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * keyset(seek) 페이징 커서
+ * -> 마지막으로 읽은 row의 정렬 키를 기억해두고, 다음 페이지는 "그 키보다 뒤"부터 조회한다. (offset 스캔 없음)
+ * -> 클라이언트에는 Base64(URL safe)로 인코딩한 불투명한 토큰으로만 노출한다.
+ */
+@Getter
+public class MemberCursor {
+    public enum Key {
+        ID,     // member_id 순
+        AGE_ID  // age, member_id 순
+    }
+
+    private final Key key;
+    private final Integer age; // 마지막 회원의 나이 (AGE_ID 일 때만 사용)
+    private final Long memberId; // 마지막 회원의 id, 첫 페이지면 null
+
+    private MemberCursor(Key key, Integer age, Long memberId) {
+        this.key = key;
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public static MemberCursor first(Key key) {
+        return new MemberCursor(key, null, null);
+    }
+
+    public boolean isFirst() {
+        return memberId == null;
+    }
+
+    public MemberCursor next(MemberTeamDto last) {
+        return new MemberCursor(key, key == Key.AGE_ID ? last.getAge() : null, last.getMemberId());
+    }
+
+    // ID -> "i:{memberId}", AGE_ID -> "a:{age}:{memberId}"
+    public String encode() {
+        String raw = key == Key.AGE_ID
+                ? "a:" + toText(age) + ":" + toText(memberId)
+                : "i:" + toText(memberId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token encode()로 만든 토큰, 비어 있으면 member_id 순 첫 페이지
+     * @throws InvalidCursorException 잘못된 토큰일 때
+     */
+    public static MemberCursor decode(String token) {
+        if (!hasText(token)) {
+            return first(Key.ID);
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", -1);
+
+            if (parts.length == 2 && parts[0].equals("i")) {
+                return new MemberCursor(Key.ID, null, toLong(parts[1]));
+            }
+            if (parts.length == 3 && parts[0].equals("a")) {
+                Integer age = parts[1].isEmpty() ? null : Integer.valueOf(parts[1]);
+                Long memberId = toLong(parts[2]);
+                if (age == null && memberId != null) {
+                    throw new IllegalArgumentException("age가 없는 커서입니다.");
+                }
+                return new MemberCursor(Key.AGE_ID, age, memberId);
+            }
+        } catch (IllegalArgumentException e) { // Base64, 숫자 변환 오류 포함
+            throw new InvalidCursorException(token, e);
+        }
+        throw new InvalidCursorException(token);
+    }
+
+    private static String toText(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    private static Long toLong(String text) {
+        return text.isEmpty() ? null : Long.valueOf(text);
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 팀별 회원 나이 통계 (/teams/stats)
+ */
+@Data
+public class TeamStatsDto {
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Double ageAvg; // 회원이 없으면 null (ageMin, ageMax도 같음)
+    private Integer ageMin;
+    private Integer ageMax;
+
+    public TeamStatsDto(Long teamId, String teamName, long memberCount, long ageSum, Integer ageMin, Integer ageMax) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.ageAvg = memberCount > 0 ? (double) ageSum / memberCount : null;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+}
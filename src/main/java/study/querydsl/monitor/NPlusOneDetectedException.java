@@ -0,0 +1,10 @@
+package study.querydsl.monitor;
+
+import java.util.Map;
+
+public class NPlusOneDetectedException extends RuntimeException {
+
+    public NPlusOneDetectedException(Map<String, Integer> violations, int maxRepeats) {
+        super("같은 쿼리가 " + maxRepeats + "번을 넘게 실행되었습니다. (N+1 의심) " + violations);
+    }
+}
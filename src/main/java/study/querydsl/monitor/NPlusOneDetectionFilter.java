@@ -0,0 +1,77 @@
+package study.querydsl.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * HTTP 요청 하나 동안 같은 select 가 n-plus-one.max-repeats 번을 넘게 실행되면
+ * n-plus-one.action 에 따라 로그를 남기거나(log) 500으로 응답한다(fail).
+ * -> fail: 응답 body를 버퍼에 모아두었다가(ContentCachingResponseWrapper) 감지되면 버리고 500을 보낸다.
+ *    (응답이 커밋되기 전에 바꿔야 하므로 스트리밍 응답도 끝까지 버퍼에 쌓인다. 개발/테스트용)
+ * -> 비동기 요청은 async dispatch가 끝날 때 응답을 내보낸다. (다른 스레드에서 실행된 쿼리는 세지 않음)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "n-plus-one", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class NPlusOneDetectionFilter extends OncePerRequestFilter {
+    @Value("${n-plus-one.max-repeats:10}")
+    private int maxRepeats;
+
+    @Value("${n-plus-one.action:log}")
+    private String action;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false; // fail 모드에서 async dispatch가 끝난 뒤 버퍼를 내보내야 한다.
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!"fail".equals(action)) {
+            Map<String, Integer> violations = detect(request, response, filterChain);
+            if (!violations.isEmpty()) {
+                log.warn("N+1 의심: {} {} -> {}", request.getMethod(), request.getRequestURI(), violations);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper buffered = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (buffered == null) {
+            buffered = new ContentCachingResponseWrapper(response);
+        }
+        Map<String, Integer> violations = detect(request, buffered, filterChain);
+        if (isAsyncStarted(request)) { // async dispatch에서 마무리
+            return;
+        }
+
+        if (!violations.isEmpty()) {
+            NPlusOneDetectedException e = new NPlusOneDetectedException(violations, maxRepeats);
+            log.error("N+1 감지: {} {}", request.getMethod(), request.getRequestURI(), e);
+            buffered.reset(); // 버퍼에 쌓인 body, 헤더, 상태를 버린다.
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+            return;
+        }
+        buffered.copyBodyToResponse();
+    }
+
+    private Map<String, Integer> detect(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (StatementScope scope = StatementScope.open(maxRepeats)) {
+            filterChain.doFilter(request, response);
+            return scope.getViolations();
+        }
+    }
+}
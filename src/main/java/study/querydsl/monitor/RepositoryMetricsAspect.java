@@ -0,0 +1,101 @@
+package study.querydsl.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * repository 메서드별 지표 (/actuator/prometheus)
+ * -> member.repository: 실행 시간 (p50, p99, histogram)
+ * -> member.repository.rows: 반환한 row 수
+ * -> member.repository.statements: 호출 한 번에 실행된 SQL 수
+ * -> condition 태그: 값이 들어온 검색 조건 (예: teamName+ageGoe), 어떤 조건 조합이 느린지 볼 수 있다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * study.querydsl.repository.MemberRepositoryImpl.*(..))" +
+            " || execution(public * study.querydsl.repository.MemberJpaRepository.*(..))" +
+            " || execution(public * study.querydsl.repository.MemberTestRepository.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of(
+                "repository", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+                "method", joinPoint.getSignature().getName(),
+                "condition", conditionTag(joinPoint.getArgs()));
+
+        long statementsBefore = SqlStatementCounter.current();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            recordRows(tags, result);
+            return result;
+        } finally {
+            sample.stop(Timer.builder("member.repository")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            DistributionSummary.builder("member.repository.statements")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(SqlStatementCounter.current() - statementsBefore);
+        }
+    }
+
+    private void recordRows(Tags tags, Object result) {
+        long rows;
+        if (result instanceof Collection) {
+            rows = ((Collection<?>) result).size();
+        } else if (result instanceof Page) {
+            rows = ((Page<?>) result).getNumberOfElements();
+        } else if (result instanceof CursorPage) {
+            rows = ((CursorPage<?>) result).getContent().size();
+        } else if (result instanceof Optional) {
+            rows = ((Optional<?>) result).isPresent() ? 1 : 0;
+        } else {
+            return; // stream, count 등은 제외
+        }
+
+        DistributionSummary.builder("member.repository.rows")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    private static String conditionTag(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                MemberSearchCondition condition = (MemberSearchCondition) arg;
+                List<String> names = new ArrayList<>();
+                if (hasText(condition.getUsername())) names.add("username");
+                if (hasText(condition.getTeamName())) names.add("teamName");
+                if (condition.getAgeGoe() != null) names.add("ageGoe");
+                if (condition.getAgeLoe() != null) names.add("ageLoe");
+                return names.isEmpty() ? "none" : String.join("+", names);
+            }
+        }
+        return "n/a";
+    }
+}
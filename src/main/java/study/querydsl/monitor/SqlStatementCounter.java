@@ -0,0 +1,25 @@
+package study.querydsl.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 현재 스레드에서 실행된 SQL statement 수 (p6spy로 실제 jdbc 실행을 센다)
+ * -> 메서드 실행 전후의 값 차이로 호출 한 번에 나간 쿼리 수를 구한다.
+ */
+@Component
+public class SqlStatementCounter extends SimpleJdbcEventListener {
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        COUNT.get()[0]++;
+    }
+}
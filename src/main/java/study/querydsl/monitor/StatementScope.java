@@ -0,0 +1,84 @@
+package study.querydsl.monitor;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 요청(또는 테스트) 하나 동안 실행된 select 문을 fingerprint(리터럴, 주석, 공백을 정리한 SQL) 별로 센다.
+ * -> 같은 fingerprint가 maxRepeats 번을 넘게 실행되면 N+1 으로 본다.
+ *    (예: 지연 로딩된 member.getTeam()을 row 마다 초기화 -> "select ... from team where team_id=?" 반복)
+ * -> 스레드에 묶여 있으므로 try-with-resources 로 열고 닫는다. 중첩해서 열면 바깥 scope 에도 같이 기록된다.
+ */
+public class StatementScope implements AutoCloseable {
+    private static final ThreadLocal<StatementScope> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final StatementScope parent;
+    private final int maxRepeats;
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    private StatementScope(StatementScope parent, int maxRepeats) {
+        this.parent = parent;
+        this.maxRepeats = maxRepeats;
+    }
+
+    public static StatementScope open(int maxRepeats) {
+        StatementScope scope = new StatementScope(CURRENT.get(), maxRepeats);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static void recordCurrent(String sql) {
+        StatementScope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+
+        String fingerprint = fingerprint(sql);
+        if (!fingerprint.startsWith("select")) { // insert batch 등은 반복되는 것이 정상
+            return;
+        }
+        for (; scope != null; scope = scope.parent) {
+            scope.counts.merge(fingerprint, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return maxRepeats 를 넘게 반복된 fingerprint 와 실행 횟수
+     */
+    public Map<String, Integer> getViolations() {
+        Map<String, Integer> violations = new LinkedHashMap<>();
+        counts.forEach((fingerprint, count) -> {
+            if (count > maxRepeats) {
+                violations.put(fingerprint, count);
+            }
+        });
+        return violations;
+    }
+
+    public int getMaxRepeats() {
+        return maxRepeats;
+    }
+
+    @Override
+    public void close() {
+        if (parent != null) {
+            CURRENT.set(parent);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    static String fingerprint(String sql) {
+        String normalized = COMMENT.matcher(sql).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase();
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 로 실행된 SQL을 현재 스레드의 StatementScope 에 기록한다.
+ */
+@Component
+public class StatementScopeListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        StatementScope.recordCurrent(statementInformation.getSql());
+    }
+}
@@ -0,0 +1,133 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * id로 회원을 하나씩 찾는 대신 모아서 IN 쿼리 한 번으로 조회한다. (DataLoader 방식)
+ * -> loadAll : 요청 안에서 필요한 id를 한 번에 조회 (현재 트랜잭션, 영속성 컨텍스트 사용)
+ * -> load : 여러 스레드에서 window 동안 들어온 id를 모아서 조회 (max-batch-size 가 차면 바로 조회)
+ *    별도의 읽기 전용 트랜잭션에서 조회하므로 준영속 엔티티를 돌려준다. (team은 fetch join 되어 있음)
+ *    조회는 타이머 스레드가 아닌 pool-size 개의 조회 스레드에서 실행한다. (느린 batch가 다음 window를 막지 않도록)
+ *    조회 스레드와 큐(queue-capacity)가 가득 차면 그 batch의 future는 RejectedExecutionException으로 완료된다.
+ */
+@Component
+public class MemberBatchLoader implements DisposableBean {
+    private final MemberJpaRepository memberJpaRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService dispatcher =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("member-batch-loader-"));
+    private final ThreadPoolExecutor queryExecutor;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Member>> pending = new HashMap<>();
+
+    public MemberBatchLoader(MemberJpaRepository memberJpaRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${member.batch-loader.window:2ms}") Duration window,
+                             @Value("${member.batch-loader.max-batch-size:1024}") int maxBatchSize,
+                             @Value("${member.batch-loader.pool-size:2}") int poolSize,
+                             @Value("${member.batch-loader.queue-capacity:100}") int queueCapacity) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.windowMillis = window.toMillis();
+        this.maxBatchSize = maxBatchSize;
+        this.queryExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("member-batch-loader-query-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @return id별 회원, 없는 id는 포함되지 않는다.
+     */
+    public Map<Long, Member> loadAll(Collection<Long> ids) {
+        return memberJpaRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Member::getId, Function.identity()));
+    }
+
+    /**
+     * @return 조회가 끝나면 완료되는 future, 없는 id면 null로 완료
+     *         같은 배치에서 같은 id를 요청한 호출자들이 공유하므로 직접 완료(orTimeout 등)하지 말고 copy()해서 사용한다.
+     */
+    public CompletableFuture<Member> load(Long id) {
+        Map<Long, CompletableFuture<Member>> fullBatch = null;
+        CompletableFuture<Member> future;
+
+        synchronized (lock) {
+            future = pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (pending.size() == 1) {
+                dispatcher.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                pending = new HashMap<>();
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<Long, CompletableFuture<Member>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Member>> batch) {
+        try {
+            queryExecutor.execute(() -> query(batch));
+        } catch (RejectedExecutionException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void query(Map<Long, CompletableFuture<Member>> batch) {
+        try {
+            List<Member> members = readOnlyTx.execute(status -> memberJpaRepository.findAllById(batch.keySet()));
+            Map<Long, Member> byId = members.stream()
+                    .collect(Collectors.toMap(Member::getId, Function.identity()));
+            batch.forEach((id, future) -> future.complete(byId.get(id)));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.shutdownNow();
+        queryExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.querydsl.repository.support.BulkProgressListener;
+import study.querydsl.repository.support.MemberBulkChangedEvent;
+import study.querydsl.repository.support.BulkResult;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * member bulk update/delete를 id 범위 청크로 나눠서 실행한다.
+ * -> 한 statement로 전체 범위를 잠그지 않고, 청크마다 커밋해서 잠금을 짧게 유지한다. (동시에 읽는 요청이 오래 기다리지 않음)
+ * -> 청크마다 flush/clear 해서 영속성 컨텍스트를 db와 맞춘다. (직접 em.flush(), em.clear() 하지 않아도 된다)
+ * -> 이미 트랜잭션 안에서 호출하면 그 트랜잭션에 참여하므로 청크별로 커밋되지 않는다.
+ * -> 조건(where)은 member 필드만 사용할 수 있다. (bulk 연산은 join 불가)
+ * -> 청크가 끝날 때마다 MemberBulkChangedEvent를 발행한다.
+ */
+@Repository
+public class MemberBulkRepository {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public MemberBulkRepository(EntityManager em,
+                                JPAQueryFactory queryFactory,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${member.bulk.chunk-size:1000}") int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be greater than 0");
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 예) update(member.age.lt(28), update -> update.set(member.username, "비회원"), listener)
+     */
+    public BulkResult update(Predicate where, Consumer<JPAUpdateClause> assignments, BulkProgressListener listener) {
+        return executeInChunks(where, listener, (fromId, toId) -> {
+            JPAUpdateClause update = queryFactory.update(member)
+                    .where(where, member.id.between(fromId, toId));
+            assignments.accept(update);
+            return update.execute();
+        });
+    }
+
+    public BulkResult delete(Predicate where, BulkProgressListener listener) {
+        return executeInChunks(where, listener, (fromId, toId) -> queryFactory
+                .delete(member)
+                .where(where, member.id.between(fromId, toId))
+                .execute());
+    }
+
+    private BulkResult executeInChunks(Predicate where, BulkProgressListener listener, LongBinaryOperator chunk) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush(); // 트랜잭션 안에서 호출한 경우 이전 변경 내용을 먼저 반영
+        }
+
+        Tuple range = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where)
+                .fetchOne();
+        Long minId = range != null ? range.get(member.id.min()) : null;
+        Long maxId = range != null ? range.get(member.id.max()) : null;
+        if (minId == null || maxId == null) {
+            return new BulkResult(0, 0, 0, null);
+        }
+
+        int totalChunks = (int) ((maxId - minId) / chunkSize + 1);
+        long affectedRows = 0;
+        BulkResult progress = null;
+
+        for (int i = 0; i < totalChunks; i++) {
+            long fromId = minId + (long) i * chunkSize;
+            long toId = Math.min(fromId + chunkSize - 1, maxId);
+
+            Long affected = transactionTemplate.execute(status -> {
+                long count = chunk.applyAsLong(fromId, toId);
+                em.flush();
+                em.clear(); // bulk 연산은 영속성 컨텍스트를 거치지 않으므로 남아있는 엔티티를 비운다.
+                return count;
+            });
+
+            affectedRows += affected != null ? affected : 0;
+            if (affected != null && affected > 0) {
+                // 엔티티 이벤트가 없는 bulk 연산이므로 캐시 등에 직접 알린다. (트랜잭션 안이면 커밋 후 전달)
+                eventPublisher.publishEvent(new MemberBulkChangedEvent(affected));
+            }
+            progress = new BulkResult(i + 1, totalChunks, affectedRows, toId);
+            listener.onProgress(progress);
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.MemberPredicates.searchFrom;
+
+/**
+ * 검색 조건의 total count를 샘플링으로 추정한다.
+ * -> member_id 범위(min ~ max)를 SAMPLE_WINDOWS 개 구간으로 나누고, 각 구간 앞쪽 sample-size / SAMPLE_WINDOWS 개 id 안에서만 조건에 맞는 row를 센다.
+ *    (pk 범위 스캔이라 전체 크기와 상관없이 비용이 일정)
+ * -> 추정값 = 샘플에서 맞은 비율 * id 범위
+ * -> 테이블이 작거나 추정값이 exact-threshold 보다 작으면 정확한 count를 사용한다.
+ */
+@Component
+public class MemberCountEstimator {
+    private static final int SAMPLE_WINDOWS = 4;
+
+    private final JPAQueryFactory queryFactory;
+    private final long exactThreshold;
+    private final long sampleSize;
+
+    public MemberCountEstimator(JPAQueryFactory queryFactory,
+                                @Value("${member.search.estimate.exact-threshold:10000}") long exactThreshold,
+                                @Value("${member.search.estimate.sample-size:10000}") long sampleSize) {
+        this.queryFactory = queryFactory;
+        this.exactThreshold = exactThreshold;
+        this.sampleSize = sampleSize;
+    }
+
+    public CountEstimate estimate(MemberSearchCondition condition, LongSupplier exactCount) {
+        Tuple range = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .fetchOne();
+        Long minId = range != null ? range.get(member.id.min()) : null;
+        Long maxId = range != null ? range.get(member.id.max()) : null;
+        if (minId == null || maxId == null) {
+            return new CountEstimate(0, true);
+        }
+
+        long idSpan = maxId - minId + 1;
+        if (idSpan <= sampleSize) { // 작은 테이블은 그냥 센다
+            return new CountEstimate(exactCount.getAsLong(), true);
+        }
+
+        long windowSize = Math.max(1, sampleSize / SAMPLE_WINDOWS);
+        long step = idSpan / SAMPLE_WINDOWS;
+        BooleanBuilder sampleIds = new BooleanBuilder();
+        for (int i = 0; i < SAMPLE_WINDOWS; i++) {
+            long from = minId + i * step;
+            sampleIds.or(member.id.between(from, from + windowSize - 1));
+        }
+
+        Long matched = searchFrom(queryFactory.select(member.count()), condition)
+                .where(sampleIds)
+                .fetchOne();
+
+        long estimated = Math.round((double) (matched != null ? matched : 0) / (windowSize * SAMPLE_WINDOWS) * idSpan);
+        if (estimated < exactThreshold) { // 작은 결과는 정확하게 세도 싸고, 추정 오차가 크다
+            return new CountEstimate(exactCount.getAsLong(), true);
+        }
+        return new CountEstimate(estimated, false);
+    }
+
+    /**
+     * content만으로 total을 알 수 있으면(첫 페이지가 덜 찼거나 마지막 페이지) 추정하지 않는다. (PageableExecutionUtils와 같은 기준)
+     */
+    public static <T> EstimatedPage<T> toPage(List<T> content, Pageable pageable, Supplier<CountEstimate> estimate) {
+        if (pageable.isUnpaged() || (pageable.getOffset() == 0 && pageable.getPageSize() > content.size())) {
+            return new EstimatedPage<>(content, pageable, content.size(), true);
+        }
+        if (pageable.getOffset() > 0 && !content.isEmpty() && pageable.getPageSize() > content.size()) {
+            return new EstimatedPage<>(content, pageable, pageable.getOffset() + content.size(), true);
+        }
+
+        CountEstimate total = estimate.get();
+        return new EstimatedPage<>(content, pageable, total.getTotal(), total.isExact());
+    }
+
+    @Getter
+    public static class CountEstimate {
+        private final long total;
+        private final boolean exact;
+
+        public CountEstimate(long total, boolean exact) {
+            this.total = total;
+            this.exact = exact;
+        }
+    }
+}
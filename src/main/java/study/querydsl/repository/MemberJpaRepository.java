@@ -2,10 +2,11 @@ package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -13,16 +14,24 @@ import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberPredicates.MEMBER_TEAM_DTO;
+import static study.querydsl.repository.MemberPredicates.searchFrom;
 
 @RequiredArgsConstructor
 @Repository
 public class MemberJpaRepository {
+    static final int IN_CLAUSE_CHUNK_SIZE = 1024; // padding 후에도 2의 거듭제곱
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
 
@@ -35,20 +44,45 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    /**
+     * id 목록을 IN 쿼리로 한 번에 조회한다. (team fetch join, 중복 id 제거)
+     * -> hibernate.query.in_clause_parameter_padding=true : IN 절 파라미터 수를 2의 거듭제곱으로 맞춰서
+     *    id 개수마다 다른 SQL이 만들어지지 않게 한다. (쿼리 plan 캐시, db statement 캐시 절약)
+     * -> IN_CLAUSE_CHUNK_SIZE 개씩 나눠서 조회
+     */
+    public List<Member> findAllById(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Member> result = new ArrayList<>(distinctIds.size());
+
+        for (int from = 0; from < distinctIds.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinctIds.size()));
+            result.addAll(queryFactory
+                    .selectFrom(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .where(member.id.in(chunk))
+                    .fetch());
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl() {
         return queryFactory
                 .selectFrom(member)
+                .setHint(QueryHints.READ_ONLY, true) // 스냅샷을 만들지 않음 (dirty check 제외)
                 .fetch();
     }
 
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
+                .setHint(QueryHints.CACHEABLE, true) // 쿼리 캐시 (결과 id 목록) + 2차 캐시 (엔티티)
                 .getResultList();
     }
 
@@ -56,9 +90,11 @@ public class MemberJpaRepository {
         return queryFactory
                 .selectFrom(member)
                 .where(member.username.eq(username))
+                .setHint(QueryHints.CACHEABLE, true)
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
         BooleanBuilder builder = new BooleanBuilder();
 
@@ -92,39 +128,24 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    @Transactional(readOnly = true) // datasource.routing.enabled=true 이면 replica에서 조회
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto( // dto로 조회
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        return searchFrom(queryFactory
+                .select(MEMBER_TEAM_DTO), condition) // dto로 조회 (공유 프로젝션), 미리 만들어 둔 조건에 값만 바인딩 (MemberPredicates)
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * 결과를 List로 모으지 않고 한 row씩 읽는다. (JPAQuery.stream() -> hibernate ScrollableResults)
+     * -> dto로 조회하므로 영속성 컨텍스트에 엔티티가 쌓이지 않는다. (전체를 읽어도 heap 사용량이 일정)
+     * -> 다 읽을 때까지 커넥션을 물고 있으므로 트랜잭션 안에서 사용하고, 반드시 close 해야 한다. (try-with-resources)
+     * @param fetchSize jdbc driver가 한 번에 가져올 row 수
+     */
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+        return searchFrom(queryFactory
+                .select(MEMBER_TEAM_DTO), condition)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .stream();
     }
 }
@@ -0,0 +1,138 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.support.QueryBase;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * querydsl 회원 검색 조건, 프로젝션 (MemberJpaRepository, MemberRepositoryImpl, MemberTestRepository 공용)
+ * -> querydsl 식은 불변이므로 프로젝션과 조건 식을 한 번만 만들어 공유한다.
+ * -> 조건은 값 대신 Param(자리 표시자)으로 만들어서 조건 조합(shape)별 배열로 미리 만들어 두고, 요청마다 값만 바인딩한다.
+ *    (요청마다 QMemberTeamDto, BooleanExpression, 상수 식을 새로 만들지 않는다)
+ * -> 조건 4개(username, teamName, ageGoe, ageLoe)의 유무 조합은 16가지 뿐이고, 같은 조합이면 값이 달라도 JPQL이 같다.
+ *    (조합별로 직렬화한 JPQL은 MemberSearchQueries가 캐시한다. 값은 where 순서대로 ?1, ?2 ... 로 바인딩: bind)
+ * -> teamName 조건은 team 별칭을 사용하므로 member.team 조인이 필요하다. (searchFrom, searchJoin)
+ */
+public final class MemberPredicates {
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+    static final int SHAPE_COUNT = 1 << 4;
+
+    public static final QMemberTeamDto MEMBER_TEAM_DTO = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName")
+    );
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    private static final Predicate[][] WHERE = new Predicate[SHAPE_COUNT][];
+
+    static {
+        Predicate usernameEq = member.username.eq(USERNAME_PARAM);
+        Predicate teamNameEq = team.name.eq(TEAM_NAME_PARAM);
+        Predicate ageGoe = member.age.goe(AGE_GOE_PARAM);
+        Predicate ageLoe = member.age.loe(AGE_LOE_PARAM);
+
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            List<Predicate> predicates = new ArrayList<>(4);
+            if ((shape & USERNAME) != 0) predicates.add(usernameEq);
+            if ((shape & TEAM_NAME) != 0) predicates.add(teamNameEq);
+            if ((shape & AGE_GOE) != 0) predicates.add(ageGoe);
+            if ((shape & AGE_LOE) != 0) predicates.add(ageLoe);
+            WHERE[shape] = predicates.toArray(new Predicate[0]);
+        }
+    }
+
+    private MemberPredicates() {
+    }
+
+    /**
+     * 검색 조건을 query의 where에 추가하고 값을 바인딩한다. (빈 문자열, null 조건은 제외)
+     */
+    public static <Q extends QueryBase<Q>> Q where(Q query, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        if (shape == 0) {
+            return query;
+        }
+
+        query.where(WHERE[shape]);
+        if ((shape & USERNAME) != 0) query.set(USERNAME_PARAM, condition.getUsername());
+        if ((shape & TEAM_NAME) != 0) query.set(TEAM_NAME_PARAM, condition.getTeamName());
+        if ((shape & AGE_GOE) != 0) query.set(AGE_GOE_PARAM, condition.getAgeGoe());
+        if ((shape & AGE_LOE) != 0) query.set(AGE_LOE_PARAM, condition.getAgeLoe());
+        return query;
+    }
+
+    /**
+     * from member + team 조인 + 검색 조건
+     * -> teamName 조건이 있으면 team이 없는 회원은 어차피 걸러지므로 inner join 한다.
+     *    (left join은 db가 member부터 읽어야 해서 team.name -> (team_id, age) 인덱스 순서로 찾을 수 없다)
+     * -> 그 외에는 team이 없는 회원도 포함하도록 left join
+     */
+    public static <T> JPAQuery<T> searchFrom(JPAQuery<T> query, MemberSearchCondition condition) {
+        return searchJoin(query.from(member), condition);
+    }
+
+    /**
+     * searchFrom과 같은 team 조인 + 검색 조건 (selectFrom(member)처럼 from이 이미 있는 쿼리용)
+     */
+    public static <T> JPAQuery<T> searchJoin(JPAQuery<T> query, MemberSearchCondition condition) {
+        return where(joinTeam(query, shapeOf(condition)), condition);
+    }
+
+    /**
+     * 값을 바인딩하지 않은 조건 조합(shape)별 from + 조인 + where (JPQL 직렬화용, MemberSearchQueries)
+     */
+    static <T> JPAQuery<T> searchFrom(JPAQuery<T> query, int shape) {
+        return joinTeam(query.from(member), shape).where(WHERE[shape]);
+    }
+
+    /**
+     * searchFrom(query, shape)를 직렬화한 JPQL에 검색 조건 값을 위치 파라미터(?1, ?2 ...)로 바인딩한다.
+     * -> querydsl은 Param을 where에 나온 순서대로 번호를 붙인다. (username, teamName, ageGoe, ageLoe 중 있는 것만)
+     */
+    static <T extends Query> T bind(T query, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        int position = 1;
+        if ((shape & USERNAME) != 0) query.setParameter(position++, condition.getUsername());
+        if ((shape & TEAM_NAME) != 0) query.setParameter(position++, condition.getTeamName());
+        if ((shape & AGE_GOE) != 0) query.setParameter(position++, condition.getAgeGoe());
+        if ((shape & AGE_LOE) != 0) query.setParameter(position, condition.getAgeLoe());
+        return query;
+    }
+
+    private static <T> JPAQuery<T> joinTeam(JPAQuery<T> query, int shape) {
+        if ((shape & TEAM_NAME) != 0) {
+            return query.join(member.team, team);
+        }
+        return query.leftJoin(member.team, team);
+    }
+
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) shape |= USERNAME;
+        if (hasText(condition.getTeamName())) shape |= TEAM_NAME;
+        if (condition.getAgeGoe() != null) shape |= AGE_GOE;
+        if (condition.getAgeLoe() != null) shape |= AGE_LOE;
+        return shape;
+    }
+}
@@ -1,12 +1,17 @@
 package study.querydsl.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import study.querydsl.entity.Member;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
     // QuerydslPredicateExecutor<Member>: spring data에서 제공하는 인터페이스
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true")) // 쿼리 캐시 + 2차 캐시
     List<Member> findByUsername(String username);
 }
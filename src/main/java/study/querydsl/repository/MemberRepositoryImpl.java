@@ -1,8 +1,7 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -10,70 +9,49 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
+import study.querydsl.repository.support.ParallelCountExecutor;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberPredicates.MEMBER_TEAM_DTO;
+import static study.querydsl.repository.MemberPredicates.searchFrom;
 
 @RequiredArgsConstructor
+@Transactional(readOnly = true) // 조회 전용 -> datasource.routing.enabled=true 이면 replica에서 조회
 public class MemberRepositoryImpl implements MemberRepositoryCustom { // 이름 명명 규칙: {spring data repository name} + Impl
     // QuerydslRepositorySupport를 사용하려면 extends QuerydslRepositorySupport를 해주고, 지원하는 constructure를 만들어서 사용하면 된다.
     // 근데 오히려 별로인듯해서 구현하지 않음.
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueries searchQueries; // 조건 조합별로 캐시된 JPQL
+    private final MemberSearchCountCache countCache;
+    private final ParallelCountExecutor parallelCount;
+    private final MemberCountEstimator countEstimator;
+    private final MemberSearchResultCache resultCache; // 같은 조건, 같은 페이지 결과 캐시
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto( // dto로 조회
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        return resultCache.get("search", condition, null, () -> searchQueries.content(em, condition, 0, 0));
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults(); // fetchResults(): content와 count를 한번에 조회할 수 있다. (각각 두번의 쿼리 호출)
-
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
-
-        return new PageImpl<>(content, pageable, total);
+        return resultCache.get("searchPageSimple", condition, pageable, () -> {
+            List<MemberTeamDto> content = contentPage(condition, pageable);
+            long total = searchQueries.count(em, condition); // content와 count를 항상 같이 조회 (두번의 쿼리 호출)
+
+            return new PageImpl<>(content, pageable, total);
+        });
     }
 
     /**
@@ -83,59 +61,97 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom { // 이름
      * @return count 쿼리가 생략 가능한 경우 생략해서 처리
      * -> 페이지 시작이면서 컨텐츠 사이즈(조건에 따라 조회한 컨텐츠 개수)가 페이지 사이즈(한 페이지에 보여줄 개수(== size=5))보다 작을 때
      * -> 마지막 페이지 일 때 (offset(=어디서부터(몇 번부터) 가져온 건지) + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
+     * -> 그 외에는 검색 조건별로 캐시된 count를 사용 (MemberSearchCountCache)
+     * -> 캐시에 없으면 count query를 content query와 동시에 실행할 수 있다. (ParallelCountExecutor, opt-in)
      */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        // contents query와 count query를 분리
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
+        return resultCache.get("searchPageComplex", condition, pageable, () -> {
+            // contents query와 count query를 분리
+            Long cachedTotal = countCache.getIfPresent(condition);
+            if (cachedTotal != null) {
+                return PageableExecutionUtils.getPage(contentPage(condition, pageable), pageable, () -> cachedTotal);
+            }
+
+            // 사용하지 않은 count(덜 찬 첫 페이지, 마지막 페이지)는 끝날 때 취소한다.
+            try (ParallelCountExecutor.PendingCount countQuery = parallelCount.submit(pageable,
+                    countEm -> searchQueries.count(countEm, condition),
+                    () -> searchQueries.count(em, condition))) {
+                List<MemberTeamDto> content = contentPage(condition, pageable);
+
+                // 직접 total count query를 날림
+                return PageableExecutionUtils.getPage(content, pageable, () -> countCache.count(condition, countQuery));
+            }
+        });
+    }
+
+    /**
+     * total을 추정값으로 허용하는 페이징 (opt-in, /v3/members?exact=false)
+     * -> 조건이 넓어서 결과가 많으면 전체 count 대신 샘플링한 추정값을 사용한다. (MemberCountEstimator)
+     * -> 추정값이 작으면 정확한 count(캐시 사용)로 대체한다.
+     */
+    @Override
+    public EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        return resultCache.get("searchPageEstimated", condition, pageable, () -> {
+            List<MemberTeamDto> content = contentPage(condition, pageable);
 
-        // 직접 total count query를 날림
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
-
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount); // () -> countQuery.fetchCount()
+            return MemberCountEstimator.toPage(content, pageable, () -> countEstimator.estimate(condition,
+                    () -> countCache.count(condition, () -> searchQueries.count(em, condition))));
+        });
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    /**
+     * keyset(seek) 페이징
+     * -> offset 대신 "마지막으로 읽은 키 이후"를 조건으로 걸어서, 인덱스를 타고 바로 다음 위치부터 읽는다.
+     * -> 페이지가 깊어져도 앞의 row를 스캔하고 버리지 않으므로 첫 페이지와 비용이 같다.
+     * @param cursor 이전 응답의 nextCursor (없으면 member_id 순 첫 페이지)
+     * @param size 페이지 사이즈
+     */
+    @Override
+    public CursorPage<MemberTeamDto> searchKeyset(MemberSearchCondition condition, String cursor, int size) {
+        Assert.isTrue(size > 0, "size must be greater than 0");
+        MemberCursor current = MemberCursor.decode(cursor);
+
+        List<MemberTeamDto> content = searchFrom(queryFactory.select(MEMBER_TEAM_DTO), condition)
+                .where(afterCursor(current))
+                .orderBy(keysetOrder(current))
+                .limit(size + 1) // 다음 페이지가 있는지 확인하기 위해 하나 더 조회 (count query 없음)
+                .fetch();
+
+        if (content.size() <= size) {
+            return new CursorPage<>(content, size, null);
+        }
+
+        List<MemberTeamDto> page = new ArrayList<>(content.subList(0, size));
+        String nextCursor = current.next(page.get(size - 1)).encode();
+        return new CursorPage<>(page, size, nextCursor);
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    private List<MemberTeamDto> contentPage(MemberSearchCondition condition, Pageable pageable) {
+        return searchQueries.content(em, condition, offsetOf(pageable), pageable.getPageSize());
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    // setFirstResult는 int이므로 넘치면 잘못된 페이지 대신 예외
+    private static int offsetOf(Pageable pageable) {
+        return Math.toIntExact(pageable.getOffset());
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    private BooleanExpression afterCursor(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+
+        if (cursor.getKey() == MemberCursor.Key.AGE_ID) { // (age, id) > (:age, :id)
+            return member.age.gt(cursor.getAge())
+                    .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+        }
+        return member.id.gt(cursor.getMemberId());
     }
 
+    private OrderSpecifier<?>[] keysetOrder(MemberCursor cursor) {
+        if (cursor.getKey() == MemberCursor.Key.AGE_ID) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
+    }
 }
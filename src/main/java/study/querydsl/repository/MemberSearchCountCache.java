@@ -0,0 +1,93 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.support.MemberDataChangeListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 검색 조건별 total count 캐시 (caffeine)
+ * -> 키는 정규화한 MemberSearchCondition (페이지 번호, 사이즈와 상관없이 조건이 같으면 total도 같다)
+ * -> 키가 사용자 입력이므로 maximum-size 개까지, ttl 동안만 유지한다.
+ * -> member, team에 쓰기가 발생하면 전부 비운다. (MemberTableWriteInspector)
+ *    count하는 동안 비웠으면 커밋 전 스냅샷일 수 있으므로 넣지 않는다. (MemberSearchResultCache와 같은 방식)
+ * -> 메트릭: cache.gets{cache=memberSearchCount, result=hit|miss}, cache.evictions, cache.size
+ */
+@Component
+public class MemberSearchCountCache implements MemberDataChangeListener {
+    public static final String CACHE_NAME = "memberSearchCount";
+
+    private final Cache<MemberSearchCondition, Long> cache;
+    private final boolean enabled;
+    private final AtomicLong generation = new AtomicLong(); // 비운 횟수
+
+    public MemberSearchCountCache(MeterRegistry registry,
+                                  @Value("${member.search.count-cache.enabled:true}") boolean enabled,
+                                  @Value("${member.search.count-cache.maximum-size:10000}") long maximumSize,
+                                  @Value("${member.search.count-cache.ttl:5m}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    public long count(MemberSearchCondition condition, LongSupplier countQuery) {
+        if (!enabled || isReadWriteTransaction()) {
+            // 커밋되지 않은 변경이 섞인 count를 다른 요청과 공유하지 않는다.
+            return countQuery.getAsLong();
+        }
+
+        MemberSearchCondition key = condition.normalized();
+        Long cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long before = generation.get();
+        long total = countQuery.getAsLong();
+        if (generation.get() == before) {
+            cache.put(key, total);
+            if (generation.get() != before) { // 확인과 put 사이에 비웠으면 넣은 값을 지운다.
+                cache.invalidate(key);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return 캐시된 count, 없거나 캐시를 사용할 수 없으면 null
+     */
+    public Long getIfPresent(MemberSearchCondition condition) {
+        if (!enabled || isReadWriteTransaction()) {
+            return null;
+        }
+        return cache.getIfPresent(condition.normalized());
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onMemberDataChanged() {
+        invalidateAll();
+    }
+
+    private boolean isReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
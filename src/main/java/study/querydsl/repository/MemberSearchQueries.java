@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.MemberPredicates.MEMBER_TEAM_DTO;
+import static study.querydsl.repository.MemberPredicates.SHAPE_COUNT;
+import static study.querydsl.repository.MemberPredicates.bind;
+import static study.querydsl.repository.MemberPredicates.searchFrom;
+import static study.querydsl.repository.MemberPredicates.shapeOf;
+
+/**
+ * 검색 조건 조합(shape)별 JPQL 캐시
+ * -> 조건 4개(username, teamName, ageGoe, ageLoe)의 유무 조합은 16가지 뿐이다.
+ *    조합별로 querydsl이 직렬화한 JPQL(MemberPredicates)을 처음 한 번만 만들어 두고,
+ *    이후에는 요청마다 querydsl 쿼리를 만들고 직렬화하지 않고 em.createQuery(jpql) + 위치 파라미터 바인딩만 한다.
+ * -> JPQL 문자열이 항상 같으므로 hibernate의 query plan cache에서 파싱 결과도 그대로 재사용된다.
+ * -> 메트릭: member.search.jpql.cache{result=hit|miss} (MetricsConfig)
+ */
+@Component
+public class MemberSearchQueries {
+    private final AtomicReferenceArray<String> contentJpql = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final AtomicReferenceArray<String> countJpql = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param offset 건너뛸 row 수, limit 최대 row 수 (limit이 0 이하면 전체)
+     */
+    public List<MemberTeamDto> content(EntityManager em, MemberSearchCondition condition, int offset, int limit) {
+        TypedQuery<Object[]> query = bind(em.createQuery(contentJpql(em, shapeOf(condition)), Object[].class), condition)
+                .setFirstResult(offset);
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+
+        // querydsl은 프로젝션(QMemberTeamDto)을 select 목록으로 직렬화하므로 row를 직접 dto로 만든다.
+        List<Object[]> rows = query.getResultList();
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            content.add(MEMBER_TEAM_DTO.newInstance(row));
+        }
+        return content;
+    }
+
+    public long count(EntityManager em, MemberSearchCondition condition) {
+        Long total = bind(em.createQuery(countJpql(em, shapeOf(condition)), Long.class), condition)
+                .getSingleResult();
+        return total != null ? total : 0L;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    String contentJpql(EntityManager em, int shape) {
+        String jpql = contentJpql.get(shape);
+        if (jpql != null) {
+            hitCount.increment();
+            return jpql;
+        }
+
+        missCount.increment();
+        jpql = searchFrom(new JPAQuery<>(em).select(MEMBER_TEAM_DTO), shape).toString();
+        contentJpql.set(shape, jpql); // 동시에 만들어져도 결과가 같으므로 덮어써도 된다.
+        return jpql;
+    }
+
+    String countJpql(EntityManager em, int shape) {
+        String jpql = countJpql.get(shape);
+        if (jpql != null) {
+            hitCount.increment();
+            return jpql;
+        }
+
+        missCount.increment();
+        jpql = searchFrom(new JPAQuery<>(em).select(member.count()), shape).toString();
+        countJpql.set(shape, jpql);
+        return jpql;
+    }
+}
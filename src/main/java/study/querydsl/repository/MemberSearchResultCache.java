@@ -0,0 +1,138 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberBulkChangedEvent;
+import study.querydsl.repository.support.MemberDataChangeListener;
+import study.querydsl.repository.support.MemberEntityChange;
+import study.querydsl.repository.support.MemberEntityChangeHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 검색 결과 캐시 (caffeine)
+ * -> 키는 (검색 종류, 정규화한 검색 조건, Pageable), maximum-size 개까지, ttl 동안 유지
+ * -> Member, Team 변경이 커밋되면(hibernate 이벤트), bulk 연산 후(MemberBulkChangedEvent),
+ *    member/team 쓰기 SQL이 실행되면(MemberDataChangeListener, queryFactory.update 등 직접 실행한 bulk 포함) 전부 비운다.
+ * -> 호출한 쪽에서 결과를 바꿔도 캐시된 값이 바뀌지 않도록 넣을 때와 꺼낼 때 복사한다. (목록, MemberTeamDto)
+ * -> 읽기/쓰기 트랜잭션 안에서는 사용하지 않는다. (커밋되지 않은 변경이 섞인 결과를 공유하지 않음)
+ * -> 메트릭: cache.gets{cache=memberSearchResult, result=hit|miss}, cache.evictions, cache.size
+ */
+@Component
+public class MemberSearchResultCache implements MemberEntityChangeHandler, MemberDataChangeListener {
+    public static final String CACHE_NAME = "memberSearchResult";
+
+    private final Cache<List<Object>, Object> cache;
+    private final boolean enabled;
+    private final AtomicLong generation = new AtomicLong(); // 비운 횟수
+
+    public MemberSearchResultCache(MeterRegistry registry,
+                                   @Value("${member.search.result-cache.enabled:true}") boolean enabled,
+                                   @Value("${member.search.result-cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${member.search.result-cache.ttl:30s}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @param query 검색 종류 (search, searchPageSimple, ...) - 같은 조건이라도 결과 형태가 다르다.
+     * @param pageable 페이징이 없으면 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String query, MemberSearchCondition condition, Pageable pageable, Supplier<T> loader) {
+        if (!enabled || isReadWriteTransaction()) {
+            return loader.get();
+        }
+
+        List<Object> key = Arrays.asList(query, condition.normalized(), pageable);
+        Object cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return (T) copyOf(cached);
+        }
+
+        long before = generation.get();
+        T result = loader.get();
+        Object copy = copyOf(result);
+        if (generation.get() == before) { // 조회하는 동안 캐시를 비웠으면 이전 데이터일 수 있으므로 넣지 않는다.
+            cache.put(key, copy);
+            if (generation.get() != before) { // 확인과 put 사이에 비웠으면(커밋 후 invalidateAll) 넣은 값을 지운다.
+                cache.invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onMemberEntityChanged(MemberEntityChange change) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onMemberDataChanged() {
+        invalidateAll();
+    }
+
+    private static Object copyOf(Object result) {
+        if (result instanceof EstimatedPage) {
+            EstimatedPage<?> page = (EstimatedPage<?>) result;
+            return new EstimatedPage<>(copyOf(page.getContent()), page.getPageable(), page.getTotalElements(), page.isExact());
+        }
+        if (result instanceof Page) {
+            Page<?> page = (Page<?>) result;
+            return new PageImpl<>(copyOf(page.getContent()), page.getPageable(), page.getTotalElements());
+        }
+        if (result instanceof List) {
+            return copyOf((List<?>) result);
+        }
+        return result;
+    }
+
+    private static List<Object> copyOf(List<?> content) {
+        List<Object> copy = new ArrayList<>(content.size());
+        for (Object element : content) {
+            if (element instanceof MemberTeamDto) {
+                MemberTeamDto dto = (MemberTeamDto) element;
+                element = new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName());
+            }
+            copy.add(element);
+        }
+        return copy;
+    }
+
+    private boolean isReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
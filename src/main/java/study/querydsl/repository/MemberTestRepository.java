@@ -1,12 +1,14 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.EstimatedPage;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
@@ -14,33 +16,33 @@ import java.util.List;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberPredicates.MEMBER_TEAM_DTO;
+import static study.querydsl.repository.MemberPredicates.searchJoin;
+import static study.querydsl.repository.MemberPredicates.where;
 
 @Repository
+@Transactional(readOnly = true) // 조회 전용 -> FlushMode.MANUAL, 읽기 전용 커넥션
 public class MemberTestRepository extends Querydsl4RepositorySupport {
-    public MemberTestRepository() {
+    private final MemberCountEstimator countEstimator;
+
+    public MemberTestRepository(MemberCountEstimator countEstimator) {
         super(Member.class);
+        this.countEstimator = countEstimator;
     }
 
     public List<Member> basicSelect() {
-        return select(member)
-                .from(member)
+        return readOnly(select(member)
+                .from(member))
                 .fetch();
     }
 
     public List<Member> basicSelectFrom() {
-        return selectFrom(member)
+        return readOnly(selectFrom(member))
                 .fetch();
     }
 
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
-        JPAQuery<Member> query = selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+        JPAQuery<Member> query = searchJoin(readOnly(selectFrom(member)), condition);
 
         List<Member> content = getQuerydsl().applyPagination(pageable, query)
                 .fetch();
@@ -48,52 +50,51 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
     }
 
+    /**
+     * searchPageByApplyPage와 같지만 결과가 많으면 total을 추정값으로 대체한다. (MemberCountEstimator)
+     */
+    public EstimatedPage<Member> searchPageByApplyPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<Member> query = searchJoin(readOnly(selectFrom(member)), condition);
+
+        List<Member> content = getQuerydsl().applyPagination(pageable, query)
+                .fetch();
+
+        return MemberCountEstimator.toPage(content, pageable,
+                () -> countEstimator.estimate(condition, query::fetchCount));
+    }
+
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
-        return applyPagination(pageable, query -> query
-                .selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        return applyPagination(pageable, query -> searchJoin(query
+                .selectFrom(member), condition)
         );
     }
 
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
         // contentQuery와 countQuery를 분리해서 넘김
-        return applyPagination(pageable, contentQuery -> contentQuery
-                .selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ), countQuery -> countQuery
+        return applyPagination(pageable, contentQuery -> searchJoin(contentQuery
+                .selectFrom(member), condition), countQuery -> searchJoin(countQuery
                 .select(member.id)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .from(member), condition)
         );
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    // 엔티티 대신 dto로 조회 (applyPagination과 같은 조건)
+    public Page<MemberTeamDto> applyPaginationDto(MemberSearchCondition condition, Pageable pageable) {
+        return applyPagination(pageable, MEMBER_TEAM_DTO, query -> searchJoin(query
+                .from(member), condition)
+        );
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    public Page<MemberTeamDto> applyPaginationDto2(MemberSearchCondition condition, Pageable pageable) {
+        // contentQuery와 countQuery를 분리해서 넘김 (teamName 조건이 없으면 count에서 join 생략)
+        return applyPagination(pageable, MEMBER_TEAM_DTO, contentQuery -> searchJoin(contentQuery
+                .from(member), condition), countQuery -> {
+                    JPAQuery<?> query = countQuery.from(member);
+                    if (hasText(condition.getTeamName())) {
+                        return searchJoin(query, condition); // teamName 조건이 있으면 inner join
+                    }
+                    return where(query, condition);
+                }
+        );
     }
 }
@@ -0,0 +1,240 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MemberBulkChangedEvent;
+import study.querydsl.repository.support.MemberEntityChange;
+import study.querydsl.repository.support.MemberEntityChangeHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 수, 나이 합계/최소/최대 read model (/teams/stats)
+ * -> member 전체를 group by 하지 않고, 커밋된 Member 생성/삭제/나이 변경/팀 이동(hibernate 이벤트)을 받아서 팀별 값만 고친다.
+ *    (조회는 O(팀 수))
+ * -> 삭제, 이동으로 최소/최대가 빠져도 다시 계산할 수 있도록 팀별로 나이별 회원 수를 둔다.
+ * -> 시작할 때(ApplicationReadyEvent) db에서 만든다.
+ *    bulk 연산(MemberBulkChangedEvent, 청크마다 발행)이나 변경 전 값을 알 수 없는 update가 오면 stale로 표시만 하고,
+ *    다음 조회 때 한 번 다시 만든다. (청크마다 member 전체를 group by 하지 않음)
+ * -> 다시 만드는 조회는 잠금(변경 반영) 밖에서 새 맵으로 만들고, 끝나면 바꾼다. 실패하면 기존 값을 두고 stale로 남긴다.
+ *    조회하는 동안 반영된 변경은 이전 맵에만 들어가므로, 그런 변경이 있었으면 stale로 표시하고 다음 조회 때 다시 만든다.
+ * -> 팀이 없는 회원은 포함하지 않는다. (team inner join 기준)
+ */
+@Component
+public class TeamStats implements MemberEntityChangeHandler {
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Object rebuildLock = new Object(); // 다시 만들기는 하나씩
+    private Map<Long, Stats> teams = new TreeMap<>(); // team_id 순
+    private volatile boolean stale;
+    private long changes; // 반영한 변경 수 (this로 보호)
+
+    public TeamStats(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW); // 커밋 후 콜백에서도 호출된다.
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public List<TeamStatsDto> findAll() {
+        if (stale) {
+            rebuildIfStale();
+        }
+
+        synchronized (this) {
+            List<TeamStatsDto> result = new ArrayList<>(teams.size());
+            teams.forEach((teamId, stats) -> result.add(stats.toDto(teamId)));
+            return result;
+        }
+    }
+
+    /**
+     * team, (팀, 나이)별 회원 수를 읽어서 다시 만든다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            stale = false; // 조회하는 동안 다시 stale로 표시되면 다음 조회 때 또 다시 만든다.
+            long changesBefore;
+            synchronized (this) {
+                changesBefore = changes;
+            }
+
+            Map<Long, Stats> rebuilt;
+            try {
+                rebuilt = load();
+            } catch (RuntimeException e) {
+                stale = true;
+                throw e;
+            }
+            synchronized (this) {
+                teams = rebuilt;
+                if (changes != changesBefore) { // 조회하는 동안 커밋된 변경은 이전 맵에만 반영됐을 수 있다.
+                    stale = true;
+                }
+            }
+        }
+    }
+
+    private void rebuildIfStale() {
+        synchronized (rebuildLock) {
+            if (stale) { // 기다리는 동안 다른 스레드가 다시 만들었으면 건너뛴다.
+                rebuild();
+            }
+        }
+    }
+
+    // team, (팀, 나이)별 회원 수 (다시 만드는 횟수를 세는 테스트에서 대체)
+    Map<Long, Stats> load() {
+        Map<Long, Stats> rebuilt = new TreeMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Tuple tuple : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                rebuilt.put(tuple.get(team.id), new Stats(tuple.get(team.name)));
+            }
+
+            List<Tuple> ageCounts = queryFactory
+                    .select(team.id, member.age, member.count())
+                    .from(member)
+                    .join(member.team, team)
+                    .groupBy(team.id, member.age)
+                    .fetch();
+            for (Tuple tuple : ageCounts) {
+                rebuilt.computeIfAbsent(tuple.get(team.id), id -> new Stats(null))
+                        .add(Objects.requireNonNull(tuple.get(member.age)), Objects.requireNonNull(tuple.get(member.count())));
+            }
+        });
+        return rebuilt;
+    }
+
+    @Override
+    public synchronized void onMemberEntityChanged(MemberEntityChange change) {
+        if (change.getEntity() instanceof Team) {
+            changes++;
+            onTeamChanged(change.getType(), (Team) change.getEntity());
+        } else if (change.getEntity() instanceof Member) {
+            changes++;
+            onMemberChanged(change, (Member) change.getEntity());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+        stale = true; // 청크마다 오므로 여기서 다시 만들지 않는다.
+    }
+
+    private void onTeamChanged(MemberEntityChange.Type type, Team changed) {
+        if (type == MemberEntityChange.Type.DELETE) {
+            teams.remove(changed.getId());
+        } else {
+            teams.computeIfAbsent(changed.getId(), id -> new Stats(null)).name = changed.getName();
+        }
+    }
+
+    private void onMemberChanged(MemberEntityChange change, Member changed) {
+        switch (change.getType()) {
+            case INSERT:
+                add(changed.getTeam(), changed.getAge());
+                break;
+            case DELETE:
+                if (change.getOldState() != null) {
+                    remove((Team) change.getOldValue("team"), (Integer) change.getOldValue("age"));
+                } else {
+                    remove(changed.getTeam(), changed.getAge());
+                }
+                break;
+            case UPDATE:
+                if (change.getOldState() == null) { // 변경 전 팀, 나이를 알 수 없음
+                    stale = true;
+                    return;
+                }
+                Team oldTeam = (Team) change.getOldValue("team");
+                Integer oldAge = (Integer) change.getOldValue("age");
+                if (!Objects.equals(teamId(oldTeam), teamId(changed.getTeam())) || !Objects.equals(oldAge, changed.getAge())) {
+                    remove(oldTeam, oldAge);
+                    add(changed.getTeam(), changed.getAge());
+                }
+                break;
+        }
+    }
+
+    private void add(Team memberTeam, int age) {
+        if (memberTeam == null) {
+            return;
+        }
+        Stats stats = teams.computeIfAbsent(memberTeam.getId(), id -> new Stats(null));
+        if (stats.name == null && Hibernate.isInitialized(memberTeam)) { // 프록시는 초기화하지 않는다.
+            stats.name = memberTeam.getName();
+        }
+        stats.add(age, 1);
+    }
+
+    private void remove(Team memberTeam, Integer age) {
+        if (memberTeam == null || age == null) {
+            return;
+        }
+        Stats stats = teams.get(memberTeam.getId());
+        if (stats != null) {
+            stats.remove(age);
+        }
+    }
+
+    private static Long teamId(Team memberTeam) {
+        return memberTeam != null ? memberTeam.getId() : null;
+    }
+
+    static class Stats {
+        private String name;
+        private long count;
+        private long ageSum;
+        private final TreeMap<Integer, Long> ageCounts = new TreeMap<>(); // 나이별 회원 수 (최소/최대)
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        void add(int age, long members) {
+            count += members;
+            ageSum += (long) age * members;
+            ageCounts.merge(age, members, Long::sum);
+        }
+
+        void remove(int age) {
+            Long members = ageCounts.get(age);
+            if (members == null) { // 이미 다시 만든 뒤의 변경
+                return;
+            }
+            count--;
+            ageSum -= age;
+            if (members == 1) {
+                ageCounts.remove(age);
+            } else {
+                ageCounts.put(age, members - 1);
+            }
+        }
+
+        TeamStatsDto toDto(Long teamId) {
+            return new TeamStatsDto(teamId, name, count, ageSum,
+                    ageCounts.isEmpty() ? null : ageCounts.firstKey(),
+                    ageCounts.isEmpty() ? null : ageCounts.lastKey());
+        }
+    }
+}
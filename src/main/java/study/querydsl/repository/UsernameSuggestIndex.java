@@ -0,0 +1,174 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.MemberBulkChangedEvent;
+import study.querydsl.repository.support.MemberEntityChange;
+import study.querydsl.repository.support.MemberEntityChangeHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * username 자동완성용 메모리 인덱스 (/members/suggest)
+ * -> username 정렬 맵(ConcurrentSkipListMap)에서 prefix 이상인 첫 키부터 prefix로 시작하는 동안만 읽는다. (O(log n + limit), db 조회 없음)
+ * -> username은 중복될 수 있으므로 username별 회원 수를 같이 두고, 0이 되면 지운다.
+ * -> 시작할 때(ApplicationReadyEvent) db에서 만들고, 그 사이에는 커밋된 Member insert/delete/username 변경(hibernate 이벤트)을 반영한다.
+ * -> bulk 연산(MemberBulkChangedEvent, 청크마다 발행)이나 변경 전 username을 알 수 없는 update가 오면 stale로 표시만 하고,
+ *    다음 조회 때 한 번 다시 만든다. (청크마다 member 전체를 group by 하지 않음)
+ * -> 읽기는 잠금 없이, 변경 반영은 하나씩 처리한다. 다시 만드는 조회는 변경 반영을 막지 않고, 끝나면 새 맵으로 바꾼다.
+ *    조회하는 동안 반영된 변경은 조회 결과에 들어 있는지 알 수 없으므로(이전 맵에만 반영됨) stale로 표시하고 다음 조회 때 다시 만든다.
+ */
+@Component
+public class UsernameSuggestIndex implements MemberEntityChangeHandler {
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxLimit;
+
+    private final Object rebuildLock = new Object(); // 다시 만들기는 하나씩
+    private volatile ConcurrentSkipListMap<String, Integer> usernames = new ConcurrentSkipListMap<>();
+    private volatile boolean stale;
+    private long changes; // 반영한 변경 수 (this로 보호)
+
+    public UsernameSuggestIndex(JPAQueryFactory queryFactory,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${member.suggest.max-limit:100}") int maxLimit) {
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW); // 커밋 후 콜백에서도 호출된다.
+        this.transactionTemplate.setReadOnly(true);
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @return prefix로 시작하는 username을 사전순으로 최대 limit(member.suggest.max-limit 이하)개, prefix가 비어 있으면 빈 목록
+     */
+    public List<String> suggest(String prefix, int limit) {
+        int size = Math.min(limit, maxLimit);
+        if (prefix == null || prefix.isEmpty() || size <= 0) {
+            return Collections.emptyList();
+        }
+        if (stale) {
+            rebuildIfStale();
+        }
+
+        List<String> result = new ArrayList<>(Math.min(size, 16));
+        for (String username : usernames.tailMap(prefix, true).keySet()) {
+            if (!username.startsWith(prefix) || result.size() == size) {
+                break;
+            }
+            result.add(username);
+        }
+        return result;
+    }
+
+    /**
+     * member 테이블에서 username별 회원 수를 읽어서 인덱스를 바꾼다.
+     * -> 실패하면 기존 인덱스를 그대로 두고 stale로 남긴다. (다음 조회 때 다시 시도)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            stale = false; // 조회하는 동안 다시 stale로 표시되면 다음 조회 때 또 다시 만든다.
+            long changesBefore;
+            synchronized (this) {
+                changesBefore = changes;
+            }
+
+            ConcurrentSkipListMap<String, Integer> rebuilt;
+            try {
+                rebuilt = load();
+            } catch (RuntimeException e) {
+                stale = true;
+                throw e;
+            }
+            synchronized (this) {
+                usernames = rebuilt;
+                if (changes != changesBefore) { // 조회하는 동안 커밋된 변경은 이전 맵에만 반영됐을 수 있다.
+                    stale = true;
+                }
+            }
+        }
+    }
+
+    private void rebuildIfStale() {
+        synchronized (rebuildLock) {
+            if (stale) { // 기다리는 동안 다른 스레드가 다시 만들었으면 건너뛴다.
+                rebuild();
+            }
+        }
+    }
+
+    // username별 회원 수 (다시 만드는 횟수를 세는 테스트에서 대체)
+    ConcurrentSkipListMap<String, Integer> load() {
+        List<Tuple> counts = transactionTemplate.execute(status -> queryFactory
+                .select(member.username, member.count())
+                .from(member)
+                .where(member.username.isNotNull())
+                .groupBy(member.username)
+                .fetch());
+
+        ConcurrentSkipListMap<String, Integer> rebuilt = new ConcurrentSkipListMap<>();
+        for (Tuple tuple : Objects.requireNonNull(counts)) {
+            rebuilt.put(tuple.get(member.username), Objects.requireNonNull(tuple.get(member.count())).intValue());
+        }
+        return rebuilt;
+    }
+
+    @Override
+    public synchronized void onMemberEntityChanged(MemberEntityChange change) {
+        if (!(change.getEntity() instanceof Member)) {
+            return;
+        }
+
+        changes++;
+        String username = ((Member) change.getEntity()).getUsername();
+        switch (change.getType()) {
+            case INSERT:
+                add(username);
+                break;
+            case DELETE:
+                remove(username);
+                break;
+            case UPDATE:
+                if (change.getOldState() == null) { // 변경 전 username을 알 수 없음 -> 다음 조회 때 다시 만든다.
+                    stale = true;
+                } else if (!Objects.equals(change.getOldValue("username"), username)) {
+                    remove((String) change.getOldValue("username"));
+                    add(username);
+                }
+                break;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+        stale = true; // 청크마다 오므로 여기서 다시 만들지 않는다.
+    }
+
+    private void add(String username) {
+        if (username != null) {
+            usernames.merge(username, 1, Integer::sum);
+        }
+    }
+
+    private void remove(String username) {
+        if (username != null) {
+            usernames.computeIfPresent(username, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
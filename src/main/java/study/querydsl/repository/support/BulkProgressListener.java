@@ -0,0 +1,12 @@
+package study.querydsl.repository.support;
+
+/**
+ * bulk 연산에서 청크 하나가 끝날 때마다(커밋 후) 호출된다.
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+    BulkProgressListener NONE = progress -> {
+    };
+
+    void onProgress(BulkResult progress);
+}
@@ -0,0 +1,30 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+
+/**
+ * 청크 단위 bulk 연산의 진행 상황 / 결과
+ */
+@Getter
+public class BulkResult {
+    private final int completedChunks;
+    private final int totalChunks; // id 범위 기준 청크 수
+    private final long affectedRows; // 지금까지 변경된 row 수
+    private final Long lastId; // 마지막으로 처리한 청크의 끝 id, 대상이 없으면 null
+
+    public BulkResult(int completedChunks, int totalChunks, long affectedRows, Long lastId) {
+        this.completedChunks = completedChunks;
+        this.totalChunks = totalChunks;
+        this.affectedRows = affectedRows;
+        this.lastId = lastId;
+    }
+
+    public boolean isCompleted() {
+        return completedChunks == totalChunks;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult(" + completedChunks + "/" + totalChunks + " chunks, affectedRows=" + affectedRows + ")";
+    }
+}
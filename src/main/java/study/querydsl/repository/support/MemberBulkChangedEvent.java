@@ -0,0 +1,17 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+
+/**
+ * bulk 연산(MemberBulkRepository)으로 member가 변경됐을 때 발행된다.
+ * -> bulk 연산은 hibernate 엔티티 이벤트가 발생하지 않으므로, 엔티티 단위로 유지하는 캐시는 이 이벤트로 전체를 다시 맞춘다.
+ * -> 트랜잭션 안에서 발행되면 @TransactionalEventListener로 커밋 후에 받는다.
+ */
+@Getter
+public class MemberBulkChangedEvent {
+    private final long affectedRows;
+
+    public MemberBulkChangedEvent(long affectedRows) {
+        this.affectedRows = affectedRows;
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.repository.support;
+
+/**
+ * member, team 테이블에 쓰기(insert, update, delete)가 발생했을 때 호출된다.
+ * -> 쓰기 statement가 실행될 때 한 번, 트랜잭션이 끝난 뒤(커밋/롤백) 한 번 더 호출된다.
+ * -> bulk 연산(queryFactory.update(member), delete(member))도 포함된다.
+ */
+public interface MemberDataChangeListener {
+    void onMemberDataChanged();
+}
@@ -0,0 +1,57 @@
+package study.querydsl.repository.support;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * member, team 데이터 버전
+ * -> 쓰기가 감지될 때마다 올라간다. (MemberTableWriteInspector, 커밋 후에도 한 번 더)
+ * -> 버전 + 요청 파라미터로 ETag를 만들어서, 데이터가 그대로면 조회 없이 304를 돌려줄 수 있다.
+ * -> 애플리케이션을 재시작하면 버전이 처음부터 시작하므로 기동 시각(epoch)을 같이 넣는다.
+ * -> 요청 파라미터는 SHA-256으로 넣는다. (hashCode는 충돌하면 다른 조회에 304가 나갈 수 있음)
+ * -> 이 인스턴스에서 실행된 쓰기만 감지한다. 인스턴스가 여러 대면 다른 인스턴스에서 쓴 변경을 모르므로
+ *    오래된 데이터에 304가 나갈 수 있다. (버전을 공유하기 전까지는 단일 인스턴스에서만 사용)
+ */
+@Component
+public class MemberDataVersion implements MemberDataChangeListener {
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * @param params 응답 내용을 결정하는 요청 파라미터 (값이 같으면 toString이 같아야 한다. 예) @Data, PageRequest)
+     */
+    public String etag(Object... params) {
+        return "\"" + Long.toHexString(epoch) + "-" + current() + "-" + digest(params) + "\"";
+    }
+
+    private static String digest(Object[] params) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Object param : params) {
+            // 길이를 앞에 붙여서 파라미터 경계가 섞이지 않게 한다. ("a,b" + "c" 와 "a" + "b,c")
+            byte[] value = String.valueOf(param).getBytes(StandardCharsets.UTF_8);
+            sha256.update(ByteBuffer.allocate(Integer.BYTES).putInt(value.length).array());
+            sha256.update(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest());
+    }
+
+    @Override
+    public void onMemberDataChanged() {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+
+/**
+ * 커밋된 Member, Team 엔티티 변경 (MemberEntityEventListener)
+ */
+@Getter
+public class MemberEntityChange {
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Type type;
+    private final Object entity; // Member 또는 Team
+    private final String[] propertyNames;
+    private final Object[] oldState; // UPDATE, DELETE 에서 변경 전 값 (준영속 엔티티를 merge 한 경우 등은 null)
+
+    public MemberEntityChange(Type type, Object entity, String[] propertyNames, Object[] oldState) {
+        this.type = type;
+        this.entity = entity;
+        this.propertyNames = propertyNames;
+        this.oldState = oldState;
+    }
+
+    /**
+     * @return 변경 전 값, 알 수 없으면 null
+     */
+    public Object getOldValue(String propertyName) {
+        if (oldState == null) {
+            return null;
+        }
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (propertyNames[i].equals(propertyName)) {
+                return oldState[i];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,9 @@
+package study.querydsl.repository.support;
+
+/**
+ * Member, Team 엔티티 insert/update/delete가 커밋된 뒤 호출된다. (MemberEntityEventListener)
+ * -> 영속성 컨텍스트를 거치지 않는 bulk 연산은 포함되지 않는다. (MemberBulkChangedEvent 사용)
+ */
+public interface MemberEntityChangeHandler {
+    void onMemberEntityChanged(MemberEntityChange change);
+}
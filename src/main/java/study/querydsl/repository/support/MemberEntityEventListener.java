@@ -0,0 +1,93 @@
+package study.querydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Member, Team 엔티티 변경이 커밋되면 MemberEntityChangeHandler 들에게 알린다.
+ * -> hibernate post-commit 이벤트라 롤백된 변경은 전달되지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberEntityEventListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    private final EntityManagerFactory emf;
+    private final ObjectProvider<MemberEntityChangeHandler> handlers;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (isMemberOrTeam(event.getPersister())) {
+            dispatch(new MemberEntityChange(MemberEntityChange.Type.INSERT, event.getEntity(),
+                    event.getPersister().getPropertyNames(), null));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (isMemberOrTeam(event.getPersister())) {
+            dispatch(new MemberEntityChange(MemberEntityChange.Type.UPDATE, event.getEntity(),
+                    event.getPersister().getPropertyNames(), event.getOldState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (isMemberOrTeam(event.getPersister())) {
+            dispatch(new MemberEntityChange(MemberEntityChange.Type.DELETE, event.getEntity(),
+                    event.getPersister().getPropertyNames(), event.getDeletedState()));
+        }
+    }
+
+    // 커밋에 실패하면 변경도 없으므로 알리지 않는다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return isMemberOrTeam(persister);
+    }
+
+    private void dispatch(MemberEntityChange change) {
+        handlers.orderedStream().forEach(handler -> handler.onMemberEntityChanged(change));
+    }
+
+    private static boolean isMemberOrTeam(EntityPersister persister) {
+        Class<?> mappedClass = persister.getMappedClass();
+        return mappedClass == Member.class || mappedClass == Team.class;
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.regex.Pattern;
+
+/**
+ * hibernate가 실행하는 모든 SQL을 보고 member, team 테이블 쓰기를 감지한다.
+ * -> 엔티티 변경뿐 아니라 영속성 컨텍스트를 거치지 않는 bulk 연산도 SQL 단계에서 잡을 수 있다.
+ * -> 트랜잭션 안이면 처음 감지했을 때 한 번 알리고, 트랜잭션이 끝난 뒤 한 번 더 알린다.
+ *    (커밋 전에 다른 트랜잭션이 이전 데이터로 캐시를 다시 채웠을 수 있기 때문)
+ */
+public class MemberTableWriteInspector implements StatementInspector {
+    // use_sql_comments 옵션을 켜면 SQL 앞에 /* 주석 */ 이 붙는다.
+    private static final Pattern MEMBER_TABLE_WRITE = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(?:insert\\s+into|update|delete\\s+from|delete)\\s+(?:member|team)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final ObjectProvider<MemberDataChangeListener> listeners;
+
+    public MemberTableWriteInspector(ObjectProvider<MemberDataChangeListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (MEMBER_TABLE_WRITE.matcher(sql).find()) {
+            onWrite();
+        }
+        return sql;
+    }
+
+    private void onWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifyListeners();
+            return;
+        }
+
+        boolean registered = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(synchronization -> synchronization instanceof AfterCompletionNotification);
+        if (!registered) { // 같은 트랜잭션에서는 처음 한 번만
+            notifyListeners();
+            TransactionSynchronizationManager.registerSynchronization(new AfterCompletionNotification());
+        }
+    }
+
+    private void notifyListeners() {
+        listeners.orderedStream().forEach(MemberDataChangeListener::onMemberDataChanged);
+    }
+
+    private class AfterCompletionNotification implements TransactionSynchronization {
+        @Override
+        public void afterCompletion(int status) {
+            notifyListeners();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package study.querydsl.repository.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * count query를 별도의 읽기 전용 EntityManager(커넥션)에서 content query와 동시에 실행한다.
+ * -> opt-in: member.search.parallel-count.enabled=true
+ * -> 동시에 쓰는 커넥션은 pool-size 개로 제한된다. (hikari maximum-pool-size 보다 충분히 작게 설정)
+ *    큐(queue-capacity)까지 가득 차면 기존처럼 content query 다음에 같은 EntityManager로 실행한다.
+ * -> 호출한 스레드는 커넥션을 가진 채로 count를 기다린다. 모든 커넥션을 요청 스레드가 가지고 있으면
+ *    작업 스레드는 커넥션을 얻지 못하므로(hikari connection-timeout까지 대기) 다음 경우에는 같은 EntityManager로 실행한다.
+ *    - hikari pool에 idle 커넥션이 없을 때 (보내지 않는다)
+ *    - timeout 안에 끝나지 않았을 때 (취소하고 실행한다)
+ * -> 별도 커넥션에서는 현재 트랜잭션의 커밋되지 않은 변경이 보이지 않으므로, 읽기/쓰기 트랜잭션 안에서는 사용하지 않는다.
+ * -> count는 읽기 전용 트랜잭션에서 실행한다. (datasource.routing.enabled=true 이면 replica로 간다)
+ * -> 첫 페이지는 동시에 실행하지 않고, 실행한 count를 쓰지 않으면(마지막 페이지) 취소한다. (PendingCount)
+ */
+@Component
+public class ParallelCountExecutor implements DisposableBean {
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final Duration timeout;
+    private final HikariDataSource hikariDataSource; // hikari가 아니면 null (idle 커넥션 확인 생략)
+    private final ThreadPoolExecutor executor;
+
+    public ParallelCountExecutor(EntityManagerFactory emf,
+                                 PlatformTransactionManager transactionManager,
+                                 DataSource dataSource,
+                                 @Value("${member.search.parallel-count.enabled:false}") boolean enabled,
+                                 @Value("${member.search.parallel-count.pool-size:4}") int poolSize,
+                                 @Value("${member.search.parallel-count.queue-capacity:16}") int queueCapacity,
+                                 @Value("${member.search.parallel-count.timeout:3s}") Duration timeout) {
+        this.emf = emf;
+        this.timeout = timeout;
+        this.hikariDataSource = hikariOf(dataSource);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("parallel-count-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @param pageable 첫 페이지(offset 0)는 동시에 실행하지 않는다. (결과가 한 페이지보다 적으면 count가 필요 없으므로 content 다음에 필요할 때만)
+     * @param countQuery 넘겨받은 EntityManager로 count를 구하는 함수 (다른 스레드에서 실행된다)
+     * @param sequentialCount 동시 실행을 할 수 없을 때 사용할 count
+     * @return count 결과를 기다리는 PendingCount, 사용하지 않았으면 close()에서 취소된다. (try-with-resources)
+     */
+    public PendingCount submit(Pageable pageable, Function<EntityManager, Long> countQuery, LongSupplier sequentialCount) {
+        if (!enabled || pageable.isUnpaged() || pageable.getOffset() == 0 || isReadWriteTransaction() || !hasIdleConnection()) {
+            return PendingCount.sequential(sequentialCount);
+        }
+
+        Future<Long> future;
+        try {
+            future = executor.submit(() -> count(countQuery));
+        } catch (RejectedExecutionException e) {
+            return PendingCount.sequential(sequentialCount);
+        }
+        return new PendingCount(future, sequentialCount, timeout);
+    }
+
+    private long count(Function<EntityManager, Long> countQuery) {
+        // 작업 스레드에는 트랜잭션이 없으므로 새 읽기 전용 트랜잭션과 EntityManager가 열린다.
+        Long total = readOnlyTx.execute(status ->
+                countQuery.apply(EntityManagerFactoryUtils.getTransactionalEntityManager(emf)));
+        return total != null ? total : 0L;
+    }
+
+    private boolean hasIdleConnection() {
+        if (hikariDataSource == null) {
+            return true;
+        }
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        return pool == null || pool.getIdleConnections() > 0; // pool이 아직 시작되지 않았으면 확인하지 않는다.
+    }
+
+    // LazyConnectionDataSourceProxy, ReplicaRoutingDataSource(트랜잭션 밖이면 primary) 등으로 감싸져 있어도 찾는다.
+    private static HikariDataSource hikariOf(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static boolean isReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 동시에 실행 중인 count (또는 호출할 때 실행하는 count)
+     * -> PageableExecutionUtils.getPage는 첫 페이지가 덜 찼거나 마지막 페이지면 count를 호출하지 않는다.
+     *    그때는 close()에서 실행 중인 count를 취소해서 커넥션을 바로 돌려준다.
+     * -> timeout 안에 끝나지 않으면 취소하고 sequentialCount(호출한 스레드의 EntityManager)로 구한다.
+     */
+    public static class PendingCount implements LongSupplier, AutoCloseable {
+        private final Future<Long> future; // null이면 getAsLong()에서 sequentialCount 실행
+        private final LongSupplier sequentialCount;
+        private final Duration timeout;
+        private boolean used;
+
+        private PendingCount(Future<Long> future, LongSupplier sequentialCount, Duration timeout) {
+            this.future = future;
+            this.sequentialCount = sequentialCount;
+            this.timeout = timeout;
+        }
+
+        public static PendingCount sequential(LongSupplier count) {
+            return new PendingCount(null, count, null);
+        }
+
+        @Override
+        public long getAsLong() {
+            used = true;
+            return future != null ? join() : sequentialCount.getAsLong();
+        }
+
+        @Override
+        public void close() {
+            if (future != null && !used) {
+                future.cancel(true);
+            }
+        }
+
+        private long join() {
+            try {
+                return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true); // 커넥션을 기다리는 중이면 대기를 끝낸다.
+                return sequentialCount.getAsLong();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                throw new IllegalStateException("count query interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+}
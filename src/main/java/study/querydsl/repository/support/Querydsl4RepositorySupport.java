@@ -4,6 +4,7 @@ import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +33,7 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private ParallelCountExecutor parallelCountExecutor;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -52,6 +54,11 @@ public abstract class Querydsl4RepositorySupport {
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
 
+    @Autowired(required = false)
+    public void setParallelCountExecutor(ParallelCountExecutor parallelCountExecutor) {
+        this.parallelCountExecutor = parallelCountExecutor;
+    }
+
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
@@ -79,6 +86,15 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    /**
+     * 조회한 엔티티를 읽기 전용으로 로딩한다. (org.hibernate.readOnly)
+     * -> 변경 감지용 스냅샷을 만들지 않고, flush 시 dirty check 대상에서 빠진다. (엔티티를 수정해도 반영되지 않음)
+     * -> @Transactional(readOnly = true)와 같이 사용하면 FlushMode.MANUAL, 읽기 전용 커넥션까지 적용된다.
+     */
+    protected <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        return query.setHint(QueryHints.READ_ONLY, true);
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
@@ -88,9 +104,44 @@ public abstract class Querydsl4RepositorySupport {
 
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory, JPAQuery> countQuery) {
-        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
         JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
+        try (ParallelCountExecutor.PendingCount total = count(pageable, countResult)) { // opt-in이면 content query와 동시에 실행
+            JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable, total);
+        }
+    }
+
+    /**
+     * dto 조회 페이징 (엔티티를 영속성 컨텍스트에 올리지 않으므로 스냅샷, 지연 로딩 프록시 비용이 없다)
+     * -> query 에는 from, join, where 만 작성하고, select(projection)은 content 조회에만 붙인다. (count는 같은 조건으로)
+     * -> Pageable의 sort는 기존처럼 엔티티 경로(PathBuilder)로 적용되므로 sort 속성은 엔티티 필드 이름이어야 한다.
+     */
+    protected <T> Page<T> applyPagination(Pageable pageable, Expression<T> projection,
+                                          Function<JPAQueryFactory, JPAQuery<?>> query) {
+        JPAQuery<?> baseQuery = query.apply(getQueryFactory());
+        try (ParallelCountExecutor.PendingCount total = count(pageable, baseQuery.clone())) {
+            JPAQuery<T> jpaContentQuery = baseQuery.select(projection);
+            List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable, total);
+        }
+    }
+
+    protected <T> Page<T> applyPagination(Pageable pageable, Expression<T> projection,
+                                          Function<JPAQueryFactory, JPAQuery<?>> contentQuery,
+                                          Function<JPAQueryFactory, JPAQuery<?>> countQuery) {
+        try (ParallelCountExecutor.PendingCount total = count(pageable, countQuery.apply(getQueryFactory()))) {
+            JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory()).select(projection);
+            List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable, total);
+        }
+    }
+
+    // 사용하지 않은 count(덜 찬 첫 페이지, 마지막 페이지)는 try-with-resources가 끝날 때 취소된다.
+    private ParallelCountExecutor.PendingCount count(Pageable pageable, JPAQuery<?> countQuery) {
+        if (parallelCountExecutor == null) {
+            return ParallelCountExecutor.PendingCount.sequential(countQuery::fetchCount);
+        }
+        return parallelCountExecutor.submit(pageable, countEm -> countQuery.clone(countEm).fetchCount(), countQuery::fetchCount);
     }
 }
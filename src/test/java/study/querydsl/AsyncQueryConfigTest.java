@@ -0,0 +1,30 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AsyncQueryConfigTest {
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    @Qualifier("memberQueryExecutor")
+    ThreadPoolTaskExecutor memberQueryExecutor;
+
+    @Test
+    void applicationTaskExecutorIsNotBulkhead() {
+        // @Async, mvc 비동기 요청은 memberQueryExecutor(bulkhead)가 아닌 spring boot 기본 executor를 사용한다.
+        Object applicationTaskExecutor = context.getBean("applicationTaskExecutor");
+
+        assertThat(applicationTaskExecutor).isNotSameAs(memberQueryExecutor);
+        assertThat(context.getBean("taskExecutor")).isSameAs(applicationTaskExecutor);
+        assertThat(memberQueryExecutor.getThreadNamePrefix()).isEqualTo("member-query-");
+    }
+}
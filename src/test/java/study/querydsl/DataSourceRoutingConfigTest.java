@@ -0,0 +1,77 @@
+package study.querydsl;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JpaTransactionManager -> LazyConnectionDataSourceProxy -> ReplicaRoutingDataSource 를 거쳐
+ * 트랜잭션마다 실제로 어느 커넥션을 사용하는지 확인한다. (replica는 접속 확인용 h2 메모리 db)
+ */
+@SpringBootTest(properties = {
+        "datasource.routing.enabled=true",
+        "spring.jpa.open-in-view=false",
+        "datasource.routing.replicas[0].jdbc-url=" + DataSourceRoutingConfigTest.REPLICA_URL,
+        "datasource.routing.replicas[0].username=sa",
+        "datasource.routing.replicas[0].driver-class-name=org.h2.Driver",
+        "decorator.datasource.exclude-beans=primaryDataSource, routingDataSource"})
+class DataSourceRoutingConfigTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate readOnlyTx;
+    TransactionTemplate readWriteTx;
+
+    @BeforeEach
+    void before() {
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        readWriteTx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        assertThat(readOnlyTx.execute(status -> connectionUrl())).startsWith("jdbc:h2:mem:routing-replica");
+    }
+
+    @Test
+    void writeAfterReadInSameThreadUsesPrimary() {
+        // open-in-view가 꺼져 있으면 트랜잭션마다 커넥션을 새로 가져온다. (요청 안에서 조회 후 저장)
+        String readUrl = readOnlyTx.execute(status -> connectionUrl());
+        String writeUrl = readWriteTx.execute(status -> connectionUrl());
+
+        assertThat(readUrl).startsWith("jdbc:h2:mem:routing-replica");
+        assertThat(writeUrl).startsWith("jdbc:h2:tcp:");
+    }
+
+    @Test
+    void openInViewFailsStartup() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(DataSourceRoutingConfig.class)
+                .withPropertyValues("datasource.routing.enabled=true") // spring.jpa.open-in-view 기본값 true
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasRootCauseInstanceOf(IllegalStateException.class)
+                        .hasRootCauseMessage("datasource.routing.enabled=true requires spring.jpa.open-in-view=false"
+                                + " (routing is decided per transaction, open-in-view holds one connection per request)"));
+    }
+
+    // 현재 트랜잭션의 EntityManager가 사용하는 실제 커넥션
+    private String connectionUrl() {
+        return em.unwrap(Session.class).doReturningWork(connection -> connection.getMetaData().getURL());
+    }
+}
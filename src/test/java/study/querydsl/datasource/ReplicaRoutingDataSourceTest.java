@@ -0,0 +1,80 @@
+package study.querydsl.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+    DataSource primary = h2("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1");
+    DataSource replica1 = h2("jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1");
+    DataSource replica2 = h2("jdbc:h2:mem:replica2;DB_CLOSE_DELAY=-1");
+    DataSource downReplica = h2("jdbc:h2:tcp://localhost:1/~/down"); // 접속 불가
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readWriteGoesToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(List.of(replica1, replica2), null);
+
+        assertThat(urlOf(routing)).startsWith("jdbc:h2:mem:primary");
+        assertThat(urlOf(routing)).startsWith("jdbc:h2:mem:primary");
+    }
+
+    @Test
+    void readOnlyRoundRobin() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(List.of(replica1, replica2), null);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(urlOf(routing)).startsWith("jdbc:h2:mem:replica1");
+        assertThat(urlOf(routing)).startsWith("jdbc:h2:mem:replica2");
+        assertThat(urlOf(routing)).startsWith("jdbc:h2:mem:replica1");
+    }
+
+    @Test
+    void unhealthyReplicaExcluded() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(List.of(downReplica, replica2), null);
+        routing.checkHealth();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(urlOf(routing)).startsWith("jdbc:h2:mem:replica2");
+        assertThat(urlOf(routing)).startsWith("jdbc:h2:mem:replica2");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(List.of(replica1), "select 60"); // 60초 지연 > maxLag(10초)
+        routing.checkHealth();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(urlOf(routing)).startsWith("jdbc:h2:mem:primary");
+    }
+
+    private ReplicaRoutingDataSource routing(List<DataSource> replicas, String lagQuery) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas,
+                ReplicaRoutingDataSource.Selection.ROUND_ROBIN, Duration.ofSeconds(10), lagQuery);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static String urlOf(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    private static DataSource h2(String url) {
+        return new DriverManagerDataSource(url, "sa", "");
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.monitor.SqlStatementCounter;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -62,4 +63,26 @@ class MemberTest {
 
         Assertions.assertThat(newMember).isEqualTo(refMember);
     }
-}
\ No newline at end of file
+
+    @Test
+    void secondLevelCacheTest() {
+        Team teamA = new Team("teamA");
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(teamA);
+        em.persist(member1);
+        em.flush();
+        em.clear();
+
+        // 처음 조회할 때 db에서 읽어서 2차 캐시에 넣는다.
+        em.find(Member.class, member1.getId()).getTeam().getName();
+        em.clear();
+
+        // 영속성 컨텍스트를 비워도 2차 캐시에서 읽으므로 쿼리가 나가지 않는다.
+        long before = SqlStatementCounter.current();
+        Member findMember = em.find(Member.class, member1.getId());
+        String teamName = findMember.getTeam().getName(); // 지연 로딩도 2차 캐시에서
+
+        Assertions.assertThat(teamName).isEqualTo("teamA");
+        Assertions.assertThat(SqlStatementCounter.current() - before).isZero();
+    }
+}
@@ -0,0 +1,139 @@
+package study.querydsl.load;
+
+import lombok.Getter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * http 부하 생성기
+ * -> closed model : concurrency 개의 클라이언트가 응답을 받는 즉시 다음 요청을 보낸다. (처리량 측정)
+ * -> open model : 응답과 상관없이 초당 rate 개의 요청을 일정한 간격으로 보낸다. (목표 부하에서 지연 측정)
+ *    지연은 "보냈어야 하는 시각"부터 재므로, 서버가 밀려서 늦게 보낸 시간도 포함된다. (coordinated omission 보정)
+ * -> warmup 동안의 요청은 기록하지 않는다.
+ */
+class LoadGenerator {
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final List<URI> requests; // 미리 만들어 둔 요청 목록을 순서대로 반복
+    private final AtomicLong sequence = new AtomicLong();
+
+    LoadGenerator(List<URI> requests) {
+        this.requests = requests;
+    }
+
+    Result closed(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        Result result = new Result();
+        long measureStart = System.nanoTime() + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    boolean ok = send();
+                    if (start >= measureStart) {
+                        result.record(start, ok);
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.plus(warmup).toSeconds() + 60, TimeUnit.SECONDS);
+        return result.finish(duration);
+    }
+
+    Result open(int ratePerSecond, int maxConcurrency, Duration warmup, Duration duration) throws InterruptedException {
+        Result result = new Result();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(maxConcurrency); // 다 쓰고 있으면 큐에서 대기 -> 지연에 포함
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long waitNanos = intended - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+
+            long scheduledAt = intended;
+            clients.execute(() -> {
+                boolean ok = send();
+                if (scheduledAt >= measureStart) {
+                    result.record(scheduledAt, ok);
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(60, TimeUnit.SECONDS);
+        return result.finish(duration);
+    }
+
+    private boolean send() {
+        URI uri = requests.get((int) (sequence.getAndIncrement() % requests.size()));
+        try {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Getter
+    static class Result {
+        private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3); // 마이크로초
+        private final AtomicLong errors = new AtomicLong();
+        private double throughput; // 초당 완료 요청 수
+
+        void record(long startNanos, boolean ok) {
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+            histogram.recordValue(Math.min(latencyMicros, MAX_LATENCY_MICROS));
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Result finish(Duration duration) {
+            throughput = histogram.getTotalCount() / (duration.toMillis() / 1000.0);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%9.1f req/s  p50 %8.2f ms  p90 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  max %8.2f ms  (n=%d, errors=%d)",
+                    throughput,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()),
+                    histogram.getTotalCount(),
+                    errors.get());
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * /v1, /v2, /v3/members 부하 테스트 (./gradlew loadTest, 일반 test 에서는 제외)
+ * -> in-memory H2에 InitMember로 load.members 명을 넣고 (loadtest 프로필) 같은 요청 조합으로 세 api를 비교한다.
+ * -> 설정 (-D 로 변경)
+ *    load.members=100000, load.teams=10
+ *    load.conditions=teamName=teamA;ageGoe=30&ageLoe=35;... (';'로 구분한 검색 조건 쿼리스트링, 빈 값은 조건 없음)
+ *    load.pages=0,10,100 (size=20), load.concurrency=16, load.rate=200 (open model 초당 요청)
+ *    load.warmup=5s, load.duration=20s
+ * 예) ./gradlew loadTest -Dload.members=1000000 -Dload.rate=500
+ */
+@Tag("load")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.jdbc-url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.enabled=false", // p6spy 제외
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "spring.jpa.properties.hibernate.use_sql_comments=false",
+        "logging.level.org.hibernate.SQL=warn",
+        "member.search.result-cache.enabled=false", // 같은 요청 조합을 반복하므로 캐시 hit가 아닌 쿼리를 측정
+        "init.member-count=${load.members:100000}",
+        "init.team-count=${load.teams:10}"
+})
+class MemberControllerLoadTest {
+    private static final String DEFAULT_CONDITIONS = "teamName=teamA;ageGoe=30&ageLoe=35;teamName=teamB&ageGoe=10&ageLoe=20;username=member7";
+    private static final int PAGE_SIZE = 20;
+    private static final int REQUEST_MIX_SIZE = 1000;
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    void compareEndpoints() throws InterruptedException {
+        List<String> conditions = Arrays.asList(System.getProperty("load.conditions", DEFAULT_CONDITIONS).split(";", -1));
+        List<Integer> pages = Arrays.stream(System.getProperty("load.pages", "0,10,100").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        int concurrency = Integer.getInteger("load.concurrency", 16);
+        int rate = Integer.getInteger("load.rate", 200);
+        Duration warmup = Duration.parse("PT" + System.getProperty("load.warmup", "5s"));
+        Duration duration = Duration.parse("PT" + System.getProperty("load.duration", "20s"));
+
+        List<String> report = new ArrayList<>();
+        for (String endpoint : List.of("/v1/members", "/v2/members", "/v3/members")) {
+            List<URI> requests = requestMix(endpoint, conditions, pages);
+
+            LoadGenerator.Result closed = new LoadGenerator(requests).closed(concurrency, warmup, duration);
+            LoadGenerator.Result open = new LoadGenerator(requests).open(rate, concurrency * 4, warmup, duration);
+
+            report.add(String.format("%-12s closed(%3d)     %s", endpoint, concurrency, closed));
+            report.add(String.format("%-12s open(%4d/s)    %s", endpoint, rate, open));
+            assertThat(closed.getHistogram().getTotalCount()).isPositive();
+        }
+
+        System.out.println();
+        System.out.println("members=" + System.getProperty("load.members", "100000") + ", conditions=" + conditions + ", pages=" + pages);
+        report.forEach(System.out::println);
+    }
+
+    // 조건 x 페이지 조합을 고정된 seed로 섞어서 모든 api가 같은 순서로 요청하게 한다. (/v1 은 page를 무시)
+    private List<URI> requestMix(String endpoint, List<String> conditions, List<Integer> pages) {
+        List<URI> requests = new ArrayList<>(REQUEST_MIX_SIZE);
+        for (int i = 0; i < REQUEST_MIX_SIZE; i++) {
+            String condition = conditions.get(i % conditions.size());
+            int page = pages.get((i / conditions.size()) % pages.size());
+            requests.add(URI.create("http://localhost:" + port + endpoint
+                    + "?page=" + page + "&size=" + PAGE_SIZE + (condition.isEmpty() ? "" : "&" + condition)));
+        }
+        Collections.shuffle(requests, new Random(42));
+        return requests;
+    }
+}
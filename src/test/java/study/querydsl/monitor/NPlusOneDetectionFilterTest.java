@@ -0,0 +1,70 @@
+package study.querydsl.monitor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NPlusOneDetectionFilterTest {
+
+    @Test
+    void failReplacesResponse() throws Exception {
+        NPlusOneDetectionFilter filter = filter("fail");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/members"), response, chain(3));
+
+        // 컨트롤러가 쓰고 flush 한 200 응답 대신 500
+        assertThat(response.getStatus()).isEqualTo(500);
+        assertThat(response.getErrorMessage()).contains("N+1");
+        assertThat(response.getContentAsString()).isEmpty();
+        assertThat(response.getHeader("X-Members")).isNull();
+    }
+
+    @Test
+    void failPassesResponseThrough() throws Exception {
+        NPlusOneDetectionFilter filter = filter("fail");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/members"), response, chain(2));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("[\"member1\"]");
+        assertThat(response.getHeader("X-Members")).isEqualTo("1");
+    }
+
+    @Test
+    void logKeepsResponse() throws Exception {
+        NPlusOneDetectionFilter filter = filter("log");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/members"), response, chain(3));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("[\"member1\"]");
+    }
+
+    private static NPlusOneDetectionFilter filter(String action) {
+        NPlusOneDetectionFilter filter = new NPlusOneDetectionFilter();
+        ReflectionTestUtils.setField(filter, "maxRepeats", 2);
+        ReflectionTestUtils.setField(filter, "action", action);
+        return filter;
+    }
+
+    // 같은 select를 repeats 번 실행하고 응답을 쓴 뒤 flush 하는 컨트롤러
+    private static FilterChain chain(int repeats) {
+        return (request, response) -> {
+            for (int i = 0; i < repeats; i++) {
+                StatementScope.recordCurrent("select * from team where team_id=" + i);
+            }
+            ((HttpServletResponse) response).setHeader("X-Members", "1");
+            response.getWriter().write("[\"member1\"]");
+            response.flushBuffer();
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.monitor;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.Map;
+
+/**
+ * 테스트 메서드 하나 동안 같은 select 가 maxRepeats 번을 넘게 실행되면 테스트를 실패시킨다.
+ * -> @ExtendWith(NPlusOneExtension.class) : 기본 5번
+ * -> @RegisterExtension static NPlusOneExtension nPlusOne = new NPlusOneExtension(2);
+ */
+public class NPlusOneExtension implements BeforeEachCallback, AfterEachCallback {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(NPlusOneExtension.class);
+    private static final int DEFAULT_MAX_REPEATS = 5;
+
+    private final int maxRepeats;
+
+    public NPlusOneExtension() {
+        this(DEFAULT_MAX_REPEATS);
+    }
+
+    public NPlusOneExtension(int maxRepeats) {
+        this.maxRepeats = maxRepeats;
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(StatementScope.class, StatementScope.open(maxRepeats));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        StatementScope scope = context.getStore(NAMESPACE).remove(StatementScope.class, StatementScope.class);
+        if (scope == null) {
+            return;
+        }
+
+        scope.close();
+        Map<String, Integer> violations = scope.getViolations();
+        if (!violations.isEmpty()) {
+            throw new NPlusOneDetectedException(violations, maxRepeats);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * repository 호출 한 번이 member.repository(시간), rows, statements 지표와 condition 태그로 기록되는지 확인한다.
+ * -> 애플리케이션 레지스트리와 섞이지 않도록 SimpleMeterRegistry를 쓰는 aspect로 repository를 감싼다.
+ */
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberJpaRepository repository;
+
+    @BeforeEach
+    void before() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(AopTestUtils.<MemberJpaRepository>getTargetObject(memberJpaRepository));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new RepositoryMetricsAspect(registry));
+        repository = proxyFactory.getProxy();
+
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.flush(); // insert가 statements 지표에 섞이지 않도록 미리 실행
+    }
+
+    @Test
+    void recordTimerRowsStatements() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+
+        List<MemberTeamDto> result = repository.search(condition);
+
+        assertThat(result).hasSize(2);
+
+        Timer timer = registry.find("member.repository")
+                .tags("repository", "MemberJpaRepository", "method", "search",
+                        "condition", "teamName+ageGoe", "outcome", "success")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+
+        DistributionSummary rows = registry.find("member.repository.rows")
+                .tags("method", "search", "condition", "teamName+ageGoe")
+                .summary();
+        assertThat(rows).isNotNull();
+        assertThat(rows.totalAmount()).isEqualTo(2);
+
+        DistributionSummary statements = registry.find("member.repository.statements")
+                .tags("method", "search", "condition", "teamName+ageGoe")
+                .summary();
+        assertThat(statements).isNotNull();
+        assertThat(statements.totalAmount()).isEqualTo(1); // dto 조회 한 번
+    }
+
+    @Test
+    void conditionTagWithoutSearchCondition() {
+        repository.findByUsername("member1");
+
+        assertThat(registry.find("member.repository")
+                .tags("method", "findByUsername", "condition", "n/a")
+                .timer()).isNotNull();
+        assertThat(registry.find("member.repository.rows")
+                .tags("method", "findByUsername")
+                .summary().totalAmount()).isEqualTo(1);
+    }
+}
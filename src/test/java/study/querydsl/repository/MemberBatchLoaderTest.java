@@ -0,0 +1,168 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberBatchLoaderTest {
+    static final PlatformTransactionManager NO_TRANSACTION = new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    };
+
+    List<Set<Long>> batches = new CopyOnWriteArrayList<>(); // findAllById로 넘어온 id 목록
+    List<String> queryThreads = new CopyOnWriteArrayList<>();
+    CountDownLatch slowBatch = new CountDownLatch(0); // id 0이 포함된 batch는 이 latch가 열릴 때까지 대기
+    RuntimeException failure;
+
+    MemberJpaRepository repository = new MemberJpaRepository(null, null) { // db 대신 id로 회원을 만든다. (999는 없는 id)
+        @Override
+        public List<Member> findAllById(Collection<Long> ids) {
+            batches.add(Set.copyOf(ids));
+            queryThreads.add(Thread.currentThread().getName());
+            if (failure != null) {
+                throw failure;
+            }
+            if (ids.contains(0L)) {
+                awaitSlowBatch();
+            }
+            List<Member> members = new ArrayList<>();
+            for (Long id : ids) {
+                if (id != 999L) {
+                    Member member = new Member("member" + id, 10);
+                    member.setId(id);
+                    members.add(member);
+                }
+            }
+            return members;
+        }
+    };
+
+    MemberBatchLoader loader;
+
+    @AfterEach
+    void after() {
+        loader.destroy();
+    }
+
+    @Test
+    void coalesceLoadsInWindow() throws Exception {
+        loader = new MemberBatchLoader(repository, NO_TRANSACTION, Duration.ofMillis(100), 100, 2, 10);
+
+        CompletableFuture<Member> member1 = loader.load(1L);
+        CompletableFuture<Member> member2 = loader.load(2L);
+        CompletableFuture<Member> sameMember2 = loader.load(2L);
+        CompletableFuture<Member> missing = loader.load(999L);
+
+        assertThat(member1.get(5, TimeUnit.SECONDS).getUsername()).isEqualTo("member1");
+        assertThat(member2.get(5, TimeUnit.SECONDS).getUsername()).isEqualTo("member2");
+        assertThat(sameMember2).isSameAs(member2);
+        assertThat(missing.get(5, TimeUnit.SECONDS)).isNull();
+
+        assertThat(batches).containsExactly(Set.of(1L, 2L, 999L)); // IN 쿼리 한 번
+        assertThat(queryThreads).allMatch(name -> name.startsWith("member-batch-loader-query-")); // 타이머 스레드가 아님
+    }
+
+    @Test
+    void maxBatchSizeDispatchesWithoutWaitingWindow() throws Exception {
+        loader = new MemberBatchLoader(repository, NO_TRANSACTION, Duration.ofMinutes(1), 2, 2, 10);
+
+        CompletableFuture<Member> member1 = loader.load(1L);
+        CompletableFuture<Member> member2 = loader.load(2L); // max-batch-size -> 바로 조회
+        CompletableFuture<Member> member3 = loader.load(3L); // 다음 batch (window가 끝날 때)
+
+        assertThat(member1.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(member2.get(5, TimeUnit.SECONDS).getId()).isEqualTo(2L);
+        assertThat(member3).isNotDone();
+        assertThat(batches).containsExactly(Set.of(1L, 2L));
+    }
+
+    @Test
+    void failureCompletesEveryFutureInBatch() {
+        loader = new MemberBatchLoader(repository, NO_TRANSACTION, Duration.ofMillis(10), 100, 2, 10);
+        failure = new IllegalStateException("db down");
+
+        CompletableFuture<Member> member1 = loader.load(1L);
+        CompletableFuture<Member> member2 = loader.load(2L);
+
+        for (CompletableFuture<Member> future : List.of(member1, member2)) {
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCause(failure);
+        }
+    }
+
+    @Test
+    void slowBatchDoesNotBlockNextWindow() throws Exception {
+        loader = new MemberBatchLoader(repository, NO_TRANSACTION, Duration.ofMillis(10), 100, 2, 10);
+        slowBatch = new CountDownLatch(1);
+
+        CompletableFuture<Member> slow = loader.load(0L);
+        while (batches.isEmpty()) { // 첫 batch가 조회를 시작할 때까지
+            Thread.sleep(1);
+        }
+        CompletableFuture<Member> next = loader.load(1L);
+
+        assertThat(next.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(slow).isNotDone();
+
+        slowBatch.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS).getId()).isEqualTo(0L);
+        assertThat(batches.stream().map(Set::size).collect(Collectors.toList())).containsExactly(1, 1);
+    }
+
+    @Test
+    void timeoutOnCopyDoesNotFailOtherCallers() throws Exception {
+        loader = new MemberBatchLoader(repository, NO_TRANSACTION, Duration.ofMillis(10), 100, 2, 10);
+        slowBatch = new CountDownLatch(1);
+
+        // MemberAsyncController처럼 요청마다 복사본에 timeout을 건다.
+        CompletableFuture<Member> impatient = loader.load(0L).copy().orTimeout(10, TimeUnit.MILLISECONDS);
+        CompletableFuture<Member> patient = loader.load(0L).copy(); // 같은 id -> 같은 future를 공유
+
+        assertThatThrownBy(() -> impatient.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(patient).isNotDone();
+
+        slowBatch.countDown();
+        assertThat(patient.get(5, TimeUnit.SECONDS).getId()).isEqualTo(0L);
+    }
+
+    private void awaitSlowBatch() {
+        try {
+            slowBatch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkResult;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 트랜잭션 밖에서 호출한 bulk 연산 -> 청크마다 커밋된다. (MemberBulkRepositoryTest는 바깥 트랜잭션에 참여하는 경우)
+ * -> 커밋된 데이터를 남기므로 @Transactional 없이 직접 지운다.
+ */
+@SpringBootTest
+class MemberBulkCommitTest {
+    static final String PREFIX = "bulk-commit-";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    TransactionTemplate tx;
+    MemberBulkRepository bulkRepository;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        bulkRepository = new MemberBulkRepository(em, queryFactory, transactionManager, eventPublisher, 3); // 3개 id씩
+
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team(PREFIX + "team");
+            em.persist(teamA);
+            for (int i = 1; i <= 10; i++) {
+                em.persist(new Member(PREFIX + i, i * 10, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith(PREFIX)).execute();
+            queryFactory.delete(team).where(team.name.startsWith(PREFIX)).execute();
+        });
+    }
+
+    @Test
+    void commitPerChunk() {
+        List<Long> committed = new ArrayList<>();
+
+        BulkResult result = bulkRepository.update(member.username.startsWith(PREFIX).and(member.age.lt(55)),
+                update -> update.set(member.age, member.age.add(100)),
+                progress -> committed.add(updatedRows())); // 청크가 끝날 때마다 다른 트랜잭션에서 확인
+
+        // member1 ~ member5 -> 청크 2개 (3 + 2)
+        assertThat(result.getAffectedRows()).isEqualTo(5);
+        assertThat(committed).containsExactly(3L, 5L);
+    }
+
+    @Test
+    void failureKeepsCommittedChunks() {
+        AtomicInteger chunks = new AtomicInteger();
+
+        assertThatThrownBy(() -> bulkRepository.update(member.username.startsWith(PREFIX),
+                update -> {
+                    if (chunks.incrementAndGet() == 2) {
+                        throw new IllegalStateException("두 번째 청크 실패");
+                    }
+                    update.set(member.age, member.age.add(100));
+                },
+                progress -> {}))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(updatedRows()).isEqualTo(3); // 첫 번째 청크만 커밋, 두 번째 청크는 롤백
+    }
+
+    private long updatedRows() {
+        Long count = tx.execute(status -> queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.username.startsWith(PREFIX), member.age.gt(100))
+                .fetchOne());
+        return count != null ? count : 0L;
+    }
+}
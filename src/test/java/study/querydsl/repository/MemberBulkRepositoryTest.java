@@ -0,0 +1,140 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkResult;
+import study.querydsl.repository.support.MemberBulkChangedEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberBulkRepositoryTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    MemberBulkRepository bulkRepository;
+
+    @BeforeEach
+    void before() {
+        bulkRepository = new MemberBulkRepository(em, queryFactory, transactionManager, eventPublisher, 3); // 3개 id씩
+
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 10; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+    }
+
+    @Test
+    void bulkUpdate() {
+        List<BulkResult> progress = new ArrayList<>();
+
+        BulkResult result = bulkRepository.update(member.age.lt(55),
+                update -> update.set(member.username, "비회원"),
+                progress::add);
+
+        // member1 ~ member5 -> 청크 2개 (3 + 2)
+        assertThat(result.getAffectedRows()).isEqualTo(5);
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(progress).extracting("completedChunks").containsExactly(1, 2);
+
+        // flush, clear를 직접 하지 않아도 변경된 값이 조회된다.
+        List<Member> result2 = queryFactory
+                .selectFrom(member)
+                .where(member.username.eq("비회원"))
+                .fetch();
+        assertThat(result2).extracting("age").containsExactlyInAnyOrder(10, 20, 30, 40, 50);
+    }
+
+    @Test
+    void bulkDelete() {
+        BulkResult result = bulkRepository.delete(member.age.gt(18), progress -> {});
+
+        assertThat(result.getAffectedRows()).isEqualTo(9);
+        assertThat(result.getTotalChunks()).isEqualTo(3);
+        assertThat(queryFactory.selectFrom(member).fetch()).extracting("username").containsExactly("member1");
+    }
+
+    @Test
+    void suggestIndexRebuildsOnceAfterChunks() {
+        AtomicInteger loads = new AtomicInteger();
+        UsernameSuggestIndex suggestIndex = new UsernameSuggestIndex(queryFactory, transactionManager, 10) {
+            @Override
+            ConcurrentSkipListMap<String, Integer> load() {
+                loads.incrementAndGet();
+                return super.load();
+            }
+        };
+        MemberBulkRepository notifyingRepository = new MemberBulkRepository(em, queryFactory, transactionManager,
+                event -> suggestIndex.onMemberBulkChanged((MemberBulkChangedEvent) event), 3);
+
+        BulkResult result = notifyingRepository.update(member.username.startsWith("member"),
+                update -> update.set(member.age, member.age.add(1)),
+                progress -> {});
+        assertThat(result.getTotalChunks()).isGreaterThan(1);
+        assertThat(loads.get()).isZero(); // 청크마다 member 전체를 group by 하지 않는다.
+
+        suggestIndex.suggest("member", 10);
+        suggestIndex.suggest("member", 10);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void teamStatsRebuildsOnceAfterChunks() {
+        AtomicInteger loads = new AtomicInteger();
+        TeamStats teamStats = new TeamStats(queryFactory, transactionManager) {
+            @Override
+            Map<Long, Stats> load() {
+                loads.incrementAndGet();
+                return super.load();
+            }
+        };
+        MemberBulkRepository notifyingRepository = new MemberBulkRepository(em, queryFactory, transactionManager,
+                event -> teamStats.onMemberBulkChanged((MemberBulkChangedEvent) event), 3);
+
+        BulkResult result = notifyingRepository.delete(member.username.startsWith("member"), progress -> {});
+        assertThat(result.getTotalChunks()).isGreaterThan(1);
+        assertThat(loads.get()).isZero(); // 청크마다 member 전체를 group by 하지 않는다.
+
+        teamStats.findAll();
+        teamStats.findAll();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void noTarget() {
+        BulkResult result = bulkRepository.update(member.age.gt(1000),
+                update -> update.set(member.age, member.age.add(1)),
+                progress -> {});
+
+        assertThat(result.getAffectedRows()).isZero();
+        assertThat(result.getTotalChunks()).isZero();
+    }
+}
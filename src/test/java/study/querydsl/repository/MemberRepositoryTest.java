@@ -1,16 +1,23 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.monitor.NPlusOneExtension;
+import study.querydsl.monitor.StatementScope;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -20,6 +27,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(NPlusOneExtension.class)
 class MemberRepositoryTest {
     @PersistenceContext
     EntityManager em;
@@ -27,6 +35,12 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberSearchQueries memberSearchQueries;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
     @Test
     void basicTest() {
         Member member = new Member("member1", 10);
@@ -102,6 +116,127 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    void searchQueryCacheTest() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition1 = new MemberSearchCondition();
+        condition1.setTeamName("teamA");
+        condition1.setAgeGoe(15);
+
+        MemberSearchCondition condition2 = new MemberSearchCondition(); // 값은 다르지만 같은 조건 조합
+        condition2.setTeamName("teamB");
+        condition2.setAgeGoe(5);
+
+        // when
+        memberRepository.search(condition1);
+        long hitCount = memberSearchQueries.getHitCount();
+        long missCount = memberSearchQueries.getMissCount();
+        List<MemberTeamDto> result = memberRepository.search(condition2);
+
+        // then: 같은 조건 조합이면 캐시된 JPQL을 재사용 (querydsl 직렬화 없음)
+        assertThat(memberSearchQueries.getHitCount()).isEqualTo(hitCount + 1);
+        assertThat(memberSearchQueries.getMissCount()).isEqualTo(missCount);
+        assertThat(result).isEmpty();
+        assertThat(memberRepository.search(condition1)).extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    void searchKeysetTest() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 40, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 20, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // when (member_id 순)
+        CursorPage<MemberTeamDto> first = memberRepository.searchKeyset(condition, null, 3);
+        CursorPage<MemberTeamDto> second = memberRepository.searchKeyset(condition, first.getNextCursor(), 3);
+
+        // then
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+
+        // when (age, member_id 순)
+        String ageCursor = MemberCursor.first(MemberCursor.Key.AGE_ID).encode();
+        CursorPage<MemberTeamDto> ageFirst = memberRepository.searchKeyset(condition, ageCursor, 2);
+        CursorPage<MemberTeamDto> ageSecond = memberRepository.searchKeyset(condition, ageFirst.getNextCursor(), 2);
+
+        // then
+        assertThat(ageFirst.getContent()).extracting("username").containsExactly("member2", "member4");
+        assertThat(ageSecond.getContent()).extracting("username").containsExactly("member3", "member1");
+        assertThat(ageSecond.isHasNext()).isFalse();
+    }
+
+    @Test
+    void nPlusOneDetectTest() {
+        // given
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, 10 * i, team));
+        }
+        em.flush();
+        em.clear();
+
+        // when: member.team은 지연 로딩 -> 회원마다 team 조회 쿼리가 나간다.
+        try (StatementScope scope = StatementScope.open(1)) {
+            for (Member member : memberRepository.findAll()) {
+                System.out.println("member.team = " + member.getTeam().getName());
+            }
+
+            // then
+            assertThat(scope.getViolations()).hasSize(1);
+            assertThat(scope.getViolations().values()).containsExactly(3);
+        }
+    }
+
+    @Test
+    void searchPageEstimatedTest() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // when
+        EstimatedPage<MemberTeamDto> page = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 10));
+        // 샘플 8개 id(4구간 * 2개) 중 절반이 teamA -> 100 * 0.5
+        MemberCountEstimator.CountEstimate estimate = new MemberCountEstimator(queryFactory, 1, 8)
+                .estimate(condition, () -> { throw new AssertionError("exact count"); });
+
+        // then
+        assertThat(page.isExact()).isTrue(); // 작은 테이블은 정확한 count
+        assertThat(page.getTotalElements()).isEqualTo(50);
+        assertThat(estimate.isExact()).isFalse();
+        assertThat(estimate.getTotal()).isEqualTo(50);
+    }
+
     /** spring data의 querydsl interface
      * 해당 기능의 한계정:
      * 1. join이 불가능하다. (묵시적 조인은 가능하지만 left join이 불가능하다.)
@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 쓰기가 커밋되면 count 캐시가 비워지는지 확인한다. (MemberTableWriteInspector)
+ * -> 읽기/쓰기 트랜잭션 안에서는 캐시를 사용하지 않으므로 @Transactional 없이, 쓰기는 직접 롤백한다.
+ */
+@SpringBootTest
+class MemberSearchCountCacheTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberSearchCountCache countCache;
+
+    TransactionTemplate tx;
+    MemberSearchCondition condition = new MemberSearchCondition();
+    AtomicInteger counts = new AtomicInteger();
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        condition.setUsername("count-cache-test");
+        countCache.invalidateAll();
+    }
+
+    @Test
+    void cacheByCondition() {
+        count();
+        count();
+
+        assertThat(counts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateOnEntityWrite() {
+        count();
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("count-cache-test", 10));
+            em.flush();
+            status.setRollbackOnly(); // 쓰기 SQL이 실행되면 롤백해도 비운다.
+        });
+        count();
+
+        assertThat(counts.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateOnBulkUpdate() {
+        count();
+        tx.executeWithoutResult(status -> {
+            queryFactory.update(member)
+                    .set(member.age, member.age.add(1))
+                    .where(member.username.eq("count-cache-test"))
+                    .execute(); // hibernate 엔티티 이벤트가 없는 bulk 연산
+            status.setRollbackOnly();
+        });
+        count();
+
+        assertThat(counts.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidatedDuringCountIsNotCached() {
+        MemberSearchCountCache cache = new MemberSearchCountCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1));
+
+        cache.count(condition, () -> {
+            counts.incrementAndGet();
+            cache.onMemberDataChanged(); // count하는 동안 다른 트랜잭션이 커밋됨
+            return 5;
+        });
+
+        assertThat(cache.getIfPresent(condition)).isNull();
+    }
+
+    private void count() {
+        countCache.count(condition, () -> {
+            counts.incrementAndGet();
+            return 0;
+        });
+    }
+}
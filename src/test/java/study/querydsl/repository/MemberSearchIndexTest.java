@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.repository.MemberPredicates.*;
+
+/**
+ * 인덱스 점검: 검색 조건 조합(16가지) 별로 실제 실행될 SQL의 EXPLAIN 결과를 확인한다.
+ * -> member 테이블을 tableScan 하는 조합이 있고, member 건수가 index-advisor.max-scan-rows 보다 많으면 실패
+ * -> 조건이 하나도 없는 조합은 전체 조회이므로 제외
+ * -> 나이 조건만 있는 조합은 (team_id, age) 인덱스를 쓸 수 없어서 tableScan 한다. (출력만 하고 실패로 보지 않음)
+ * -> 테스트에서는 max-scan-rows를 낮추고 그보다 많은 회원을 넣어서, 인덱스가 없으면 실패하는지 확인한다.
+ * -> 운영 규모 데이터가 들어있는 DB에 붙여서 실행하면 어떤 조합에 인덱스가 필요한지 바로 알 수 있다.
+ */
+@SpringBootTest(properties = "index-advisor.max-scan-rows=1000")
+@Transactional
+class MemberSearchIndexTest {
+    private static final int SEED_MEMBERS = 2000;
+    private static final int SEED_TEAMS = 20;
+    private static final long SEED_ID_OFFSET = 1_000_000_000L; // 시퀀스로 만드는 id와 겹치지 않게
+
+    private static final Pattern MEMBER_TABLE_SCAN = Pattern.compile("\\bMEMBER\\.tableScan\\b", Pattern.CASE_INSENSITIVE);
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueries memberSearchQueries;
+
+    @Value("${index-advisor.max-scan-rows:10000}")
+    long maxScanRows;
+
+    @Test
+    void explainSearchShapes() {
+        // given: tableScan이면 max-scan-rows를 넘도록 (팀 SEED_TEAMS개, 나이 0 ~ 99)
+        em.createNativeQuery("insert into team (team_id, name) " +
+                        "select ? + x, 'team' || x from system_range(1, ?)")
+                .setParameter(1, SEED_ID_OFFSET)
+                .setParameter(2, SEED_TEAMS)
+                .executeUpdate();
+        em.createNativeQuery("insert into member (member_id, username, age, team_id) " +
+                        "select ? + x, 'member' || x, mod(x, 100), ? + mod(x, ?) + 1 from system_range(1, ?)")
+                .setParameter(1, SEED_ID_OFFSET)
+                .setParameter(2, SEED_ID_OFFSET)
+                .setParameter(3, SEED_TEAMS)
+                .setParameter(4, SEED_MEMBERS)
+                .executeUpdate();
+
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        long memberRows = em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+        assertThat(memberRows).isGreaterThan(maxScanRows);
+
+        // when
+        List<String> violations = new ArrayList<>();
+        for (int shape = 1; shape < SHAPE_COUNT; shape++) {
+            String jpql = memberSearchQueries.contentJpql(em, shape); // MemberRepositoryImpl과 같은 쿼리
+            String sql = sessionFactory.getQueryPlanCache()
+                    .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                    .getSqlStrings()[0];
+            String plan = explain(sql, shape);
+
+            boolean tableScan = MEMBER_TABLE_SCAN.matcher(plan).find();
+            System.out.println("[" + describe(shape) + "] tableScan=" + tableScan + "\n" + plan);
+
+            boolean indexable = (shape & (USERNAME | TEAM_NAME)) != 0;
+            if (tableScan && indexable && memberRows > maxScanRows) {
+                violations.add(describe(shape));
+            }
+        }
+
+        // then
+        assertThat(violations)
+                .as("member %d건을 tableScan 하는 검색 조건 조합", memberRows)
+                .isEmpty();
+    }
+
+    // MemberPredicates가 만드는 where 순서(username, teamName, ageGoe, ageLoe)대로 파라미터 바인딩
+    private String explain(String sql, int shape) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                int index = 1;
+                if ((shape & USERNAME) != 0) statement.setString(index++, "member1");
+                if ((shape & TEAM_NAME) != 0) statement.setString(index++, "team1");
+                if ((shape & AGE_GOE) != 0) statement.setInt(index++, 10);
+                if ((shape & AGE_LOE) != 0) statement.setInt(index, 40);
+
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private static String describe(int shape) {
+        List<String> names = new ArrayList<>();
+        if ((shape & USERNAME) != 0) names.add("username");
+        if ((shape & TEAM_NAME) != 0) names.add("teamName");
+        if ((shape & AGE_GOE) != 0) names.add("ageGoe");
+        if ((shape & AGE_LOE) != 0) names.add("ageLoe");
+        return String.join("+", names);
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberBulkChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MemberSearchResultCacheTest {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberSearchResultCache cache = new MemberSearchResultCache(registry, true, 100, Duration.ofMinutes(1));
+    AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void cacheByConditionAndPageable() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        MemberSearchCondition sameCondition = new MemberSearchCondition();
+        sameCondition.setTeamName("teamA");
+        sameCondition.setUsername(""); // 빈 문자열은 조건 없음과 같다.
+
+        load(condition, PageRequest.of(0, 10));
+        load(sameCondition, PageRequest.of(0, 10));
+        load(condition, PageRequest.of(1, 10)); // 다른 페이지
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateOnBulkChange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        load(condition, PageRequest.of(0, 10));
+        cache.onMemberBulkChanged(new MemberBulkChangedEvent(3));
+        load(condition, PageRequest.of(0, 10));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateOnDataChange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        load(condition, PageRequest.of(0, 10));
+        cache.onMemberDataChanged(); // queryFactory.update(member) 처럼 hibernate 이벤트가 없는 쓰기
+        load(condition, PageRequest.of(0, 10));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidatedDuringLoadIsNotCached() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        cache.get("searchPageComplex", condition, PageRequest.of(0, 10), () -> {
+            loads.incrementAndGet();
+            cache.onMemberDataChanged(); // 조회하는 동안 다른 트랜잭션이 커밋됨
+            return loads.get();
+        });
+        load(condition, PageRequest.of(0, 10));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void callerCannotChangeCachedResult() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Supplier<List<MemberTeamDto>> loader = () -> new ArrayList<>(List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA")));
+
+        List<MemberTeamDto> first = cache.get("search", condition, null, loader);
+        first.get(0).setUsername("changed");
+        first.add(new MemberTeamDto(2L, "member2", 20, 1L, "teamA"));
+
+        List<MemberTeamDto> second = cache.get("search", condition, null, loader);
+        second.get(0).setAge(99);
+
+        assertThat(cache.get("search", condition, null, loader))
+                .extracting(MemberTeamDto::getUsername, MemberTeamDto::getAge)
+                .containsExactly(tuple("member1", 10));
+    }
+
+    private void load(MemberSearchCondition condition, PageRequest pageable) {
+        cache.get("searchPageComplex", condition, pageable, loads::incrementAndGet);
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Test
+    void applyPaginationDtoTest() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "age")); // sort는 엔티티 필드 이름
+
+        // when
+        Page<MemberTeamDto> result = memberTestRepository.applyPaginationDto(condition, pageRequest);
+        Page<MemberTeamDto> result2 = memberTestRepository.applyPaginationDto2(condition, pageRequest);
+
+        // then
+        assertThat(result.getContent()).extracting("username").containsExactly("member4", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result2.getContent()).extracting("teamName").containsExactly("teamB", "teamB");
+        assertThat(result2.getTotalElements()).isEqualTo(3);
+        // dto로 조회했으므로 영속성 컨텍스트에 엔티티가 없다.
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void searchJoinTest() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20)); // 팀 없음
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(10);
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("age"));
+
+        // when: teamName 조건이면 inner join, 아니면 팀 없는 회원도 포함하도록 left join (MemberPredicates.searchJoin)
+        Page<Member> result = memberTestRepository.applyPagination2(byTeam, pageRequest);
+        Page<Member> result2 = memberTestRepository.applyPagination2(byAge, pageRequest);
+
+        // then
+        assertThat(result.getContent()).extracting("username").containsExactly("member1");
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result2.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result2.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void searchPageEntitiesAreReadOnly() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        // when, then: 스냅샷을 만들지 않으므로 dirty checking 대상이 아니다.
+        Member member = memberTestRepository.searchPageByApplyPage(condition, pageRequest).getContent().get(0);
+        assertThat(em.unwrap(Session.class).isReadOnly(member)).isTrue();
+
+        em.clear();
+        Member estimated = memberTestRepository.searchPageByApplyPageEstimated(condition, pageRequest).getContent().get(0);
+        assertThat(em.unwrap(Session.class).isReadOnly(estimated)).isTrue();
+    }
+}
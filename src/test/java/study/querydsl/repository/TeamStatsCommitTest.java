@@ -0,0 +1,172 @@
+package study.querydsl.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 실제 나이 변경, 팀 이동, 삭제를 커밋해서 hibernate 이벤트의 변경 전 값(team, age)이 /teams/stats에 반영되는지
+ * group by 결과와 비교한다. (QuerydslBasicTest.group())
+ * -> 커밋된 데이터를 남기므로 @Transactional 없이 직접 지운다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TeamStatsCommitTest {
+    static final String PREFIX = "stats-commit-";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @SpyBean
+    TeamStats teamStats; // 다시 만드는 조회(load)를 멈추기 위해
+
+    TransactionTemplate tx;
+    List<Long> memberIds;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        teamStats.rebuild(); // 다른 테스트의 bulk 연산으로 stale이면 아래 변경이 이벤트가 아닌 다시 만들기로 반영되므로 먼저 다시 만든다.
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team(PREFIX + "teamA");
+            Team teamB = new Team(PREFIX + "teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            List<Member> members = List.of(
+                    new Member(PREFIX + "member1", 10, teamA),
+                    new Member(PREFIX + "member2", 20, teamA),
+                    new Member(PREFIX + "member3", 30, teamB),
+                    new Member(PREFIX + "member4", 40, teamB));
+            members.forEach(em::persist);
+            em.flush();
+
+            memberIds = new ArrayList<>();
+            members.forEach(m -> memberIds.add(m.getId()));
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> { // TeamStats에서도 빠지도록 엔티티로 삭제
+            queryFactory.selectFrom(member).where(member.username.startsWith(PREFIX)).fetch().forEach(em::remove);
+            queryFactory.selectFrom(team).where(team.name.startsWith(PREFIX)).fetch().forEach(em::remove);
+        });
+    }
+
+    @Test
+    void sameAsGroupByAfterCommittedChanges() throws Exception {
+        tx.executeWithoutResult(status -> em.find(Member.class, memberIds.get(0)).setAge(50)); // teamA 최대 나이
+        tx.executeWithoutResult(status -> em.find(Member.class, memberIds.get(1))
+                .changeTeam(em.find(Team.class, teamBId))); // teamA -> teamB 이동
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, memberIds.get(3)))); // teamB 최대 나이 삭제
+
+        List<List<Object>> expected = groupBy();
+        assertThat(expected).containsExactly(
+                List.of(PREFIX + "teamA", 1L, 50L, 50, 50),
+                List.of(PREFIX + "teamB", 2L, 50L, 20, 30));
+        assertThat(teamStats()).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void commitDuringRebuildIsNotLost() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Object snapshot = invocation.callRealMethod(); // 아래 커밋 전의 group by 결과
+            loaded.countDown();
+            assertThat(committed.await(5, TimeUnit.SECONDS)).isTrue();
+            return snapshot;
+        }).when(teamStats).load();
+
+        Thread rebuild = new Thread(teamStats::rebuild);
+        rebuild.start();
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 조회가 끝나고 새 맵으로 바꾸기 전에 커밋 -> 이벤트는 이전 맵에 반영된다.
+        tx.executeWithoutResult(status -> em.persist(new Member(PREFIX + "member5", 60, em.find(Team.class, teamBId))));
+        committed.countDown();
+        rebuild.join(5000);
+
+        List<List<Object>> expected = groupBy();
+        assertThat(expected).contains(List.of(PREFIX + "teamB", 3L, 130L, 30, 60));
+        assertThat(teamStats()).containsExactlyElementsOf(expected);
+    }
+
+    // /teams/stats 응답 중 이 테스트의 팀 -> [팀 이름, 회원 수, 나이 합계, 최소, 최대]
+    private List<List<Object>> teamStats() throws Exception {
+        String body = mockMvc.perform(get("/teams/stats"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<List<Object>> result = new ArrayList<>();
+        for (JsonNode stats : objectMapper.readTree(body)) {
+            if (stats.get("teamName").asText().startsWith(PREFIX)) {
+                result.add(List.of(stats.get("teamName").asText(), stats.get("memberCount").asLong(),
+                        stats.get("ageSum").asLong(), stats.get("ageMin").asInt(), stats.get("ageMax").asInt()));
+            }
+        }
+        return result;
+    }
+
+    private List<List<Object>> groupBy() {
+        List<Tuple> rows = tx.execute(status -> queryFactory
+                .select(team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.startsWith(PREFIX))
+                .groupBy(team.id, team.name)
+                .orderBy(team.id.asc()) // /teams/stats는 team_id 순
+                .fetch());
+
+        List<List<Object>> result = new ArrayList<>();
+        for (Tuple row : Objects.requireNonNull(rows)) {
+            result.add(List.of(row.get(team.name), row.get(member.count()),
+                    Objects.requireNonNull(row.get(member.age.sum())).longValue(),
+                    row.get(member.age.min()), row.get(member.age.max())));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MemberBulkChangedEvent;
+import study.querydsl.repository.support.MemberEntityChange;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TeamStatsTest {
+    static final String[] MEMBER_PROPERTIES = {"age", "team", "username"};
+    static final String[] TEAM_PROPERTIES = {"members", "name"};
+
+    TeamStats teamStats = new TeamStats(null, null); // rebuild()를 호출하지 않는 테스트
+    Team teamA = team(1L, "teamA");
+    Team teamB = team(2L, "teamB");
+
+    @BeforeEach
+    void before() {
+        teamStats.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.INSERT, teamA, TEAM_PROPERTIES, null));
+        teamStats.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.INSERT, teamB, TEAM_PROPERTIES, null));
+    }
+
+    @Test
+    void sameAsGroupBy() {
+        // QuerydslBasicTest.aggregation(), group()과 같은 데이터
+        insert(new Member("member1", 10, teamA));
+        insert(new Member("member2", 20, teamA));
+        insert(new Member("member3", 30, teamB));
+        insert(new Member("member4", 40, teamB));
+
+        assertThat(teamStats.findAll())
+                .extracting(TeamStatsDto::getTeamName, TeamStatsDto::getMemberCount, TeamStatsDto::getAgeSum,
+                        TeamStatsDto::getAgeAvg, TeamStatsDto::getAgeMin, TeamStatsDto::getAgeMax)
+                .containsExactly(
+                        tuple("teamA", 2L, 30L, 15.0, 10, 20),
+                        tuple("teamB", 2L, 70L, 35.0, 30, 40));
+    }
+
+    @Test
+    void changeAgeAndTeamAndDelete() {
+        Member member1 = insert(new Member("member1", 10, teamA));
+        Member member2 = insert(new Member("member2", 20, teamA));
+
+        member1.setAge(50); // 나이 변경 -> teamA 최대 나이
+        update(member1, 10, teamA);
+        assertThat(find(teamA)).extracting(TeamStatsDto::getAgeMin, TeamStatsDto::getAgeMax).containsExactly(20, 50);
+
+        member2.changeTeam(teamB); // 팀 이동 -> teamA 최소 나이
+        update(member2, 20, teamA);
+        assertThat(find(teamA)).extracting(TeamStatsDto::getMemberCount, TeamStatsDto::getAgeMin).containsExactly(1L, 50);
+        assertThat(find(teamB)).extracting(TeamStatsDto::getMemberCount, TeamStatsDto::getAgeMax).containsExactly(1L, 20);
+
+        teamStats.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.DELETE, member1,
+                MEMBER_PROPERTIES, new Object[]{50, teamA, "member1"}));
+        TeamStatsDto empty = find(teamA);
+        assertThat(empty.getMemberCount()).isZero();
+        assertThat(empty.getAgeAvg()).isNull();
+        assertThat(empty.getAgeMin()).isNull();
+    }
+
+    @Test
+    void failedRebuildKeepsPreviousStats() {
+        AtomicInteger loads = new AtomicInteger();
+        TeamStats rebuildingStats = new TeamStats(null, null) {
+            @Override
+            Map<Long, Stats> load() {
+                if (loads.incrementAndGet() == 1) {
+                    throw new IllegalStateException("db down");
+                }
+                Stats stats = new Stats("teamA");
+                stats.add(30, 2);
+                return new TreeMap<>(Map.of(1L, stats));
+            }
+        };
+        rebuildingStats.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.INSERT, teamA, TEAM_PROPERTIES, null));
+        rebuildingStats.onMemberBulkChanged(new MemberBulkChangedEvent(3));
+        rebuildingStats.onMemberBulkChanged(new MemberBulkChangedEvent(3));
+        assertThat(loads.get()).isZero(); // 변경을 받을 때는 다시 만들지 않는다.
+
+        assertThatThrownBy(rebuildingStats::findAll).isInstanceOf(IllegalStateException.class);
+        assertThat(rebuildingStats.findAll()) // 다음 조회에서 다시 시도
+                .extracting(TeamStatsDto::getTeamName, TeamStatsDto::getMemberCount, TeamStatsDto::getAgeSum)
+                .containsExactly(tuple("teamA", 2L, 60L));
+        rebuildingStats.findAll();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Member insert(Member member) {
+        teamStats.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.INSERT, member, MEMBER_PROPERTIES, null));
+        return member;
+    }
+
+    private void update(Member member, int oldAge, Team oldTeam) {
+        teamStats.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.UPDATE, member,
+                MEMBER_PROPERTIES, new Object[]{oldAge, oldTeam, member.getUsername()}));
+    }
+
+    private TeamStatsDto find(Team team) {
+        List<TeamStatsDto> all = teamStats.findAll();
+        return all.stream().filter(stats -> stats.getTeamId().equals(team.getId())).findFirst().orElseThrow();
+    }
+
+    private static Team team(Long id, String name) {
+        Team team = new Team(name);
+        team.setId(id);
+        return team;
+    }
+}
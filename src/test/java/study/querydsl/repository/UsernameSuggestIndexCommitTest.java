@@ -0,0 +1,71 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 실제 persist, username 변경, 삭제를 커밋해서 hibernate 이벤트(변경 전 값 포함)가 인덱스에 반영되는지 확인한다.
+ * -> 커밋된 데이터를 남기므로 @Transactional 없이 직접 지운다.
+ */
+@SpringBootTest
+class UsernameSuggestIndexCommitTest {
+    static final String PREFIX = "suggest-commit-";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    UsernameSuggestIndex suggestIndex;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> queryFactory.selectFrom(member)
+                .where(member.username.startsWith(PREFIX))
+                .fetch()
+                .forEach(em::remove)); // 인덱스에서도 빠지도록 엔티티로 삭제
+    }
+
+    @Test
+    void persistRenameDelete() {
+        Long id = tx.execute(status -> {
+            Member member1 = new Member(PREFIX + "a", 10);
+            em.persist(member1);
+            em.persist(new Member(PREFIX + "a", 20)); // 같은 username
+            return member1.getId();
+        });
+        assertThat(suggestIndex.suggest(PREFIX, 10)).containsExactly(PREFIX + "a");
+
+        tx.executeWithoutResult(status -> em.find(Member.class, id).setUsername(PREFIX + "b"));
+        assertThat(suggestIndex.suggest(PREFIX, 10)).containsExactly(PREFIX + "a", PREFIX + "b"); // 하나 남은 a
+
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, id)));
+        assertThat(suggestIndex.suggest(PREFIX, 10)).containsExactly(PREFIX + "a");
+        assertThat(suggestIndex.suggest(PREFIX + "b", 10)).isEmpty();
+    }
+}
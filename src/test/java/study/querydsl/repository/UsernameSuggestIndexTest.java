@@ -0,0 +1,138 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.MemberBulkChangedEvent;
+import study.querydsl.repository.support.MemberEntityChange;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UsernameSuggestIndexTest {
+    static final String[] PROPERTY_NAMES = {"age", "team", "username"};
+
+    UsernameSuggestIndex index = new UsernameSuggestIndex(null, null, 3); // rebuild()를 호출하지 않는 테스트
+
+    @Test
+    void suggestByPrefix() {
+        insert("member10");
+        insert("member2");
+        insert("member1");
+        insert("userA");
+        insert("member11");
+        insert("member12");
+
+        assertThat(index.suggest("member1", 10)).containsExactly("member1", "member10", "member11"); // max-limit 3
+        assertThat(index.suggest("member2", 10)).containsExactly("member2");
+        assertThat(index.suggest("user", 1)).containsExactly("userA");
+        assertThat(index.suggest("x", 10)).isEmpty();
+        assertThat(index.suggest("", 10)).isEmpty();
+    }
+
+    @Test
+    void renameAndDelete() {
+        Member member1 = insert("member1");
+        Member duplicate = insert("member1"); // username은 중복될 수 있다.
+
+        member1.setUsername("renamed");
+        index.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.UPDATE, member1,
+                PROPERTY_NAMES, new Object[]{10, null, "member1"}));
+        assertThat(index.suggest("member", 10)).containsExactly("member1");
+        assertThat(index.suggest("ren", 10)).containsExactly("renamed");
+
+        index.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.DELETE, duplicate,
+                PROPERTY_NAMES, new Object[]{10, null, "member1"}));
+        assertThat(index.suggest("member", 10)).isEmpty();
+    }
+
+    @Test
+    void unknownOldStateRebuildsOnNextSuggest() {
+        AtomicInteger loads = new AtomicInteger();
+        UsernameSuggestIndex index = new UsernameSuggestIndex(null, null, 3) {
+            @Override
+            ConcurrentSkipListMap<String, Integer> load() { // db에는 renamed만 있다.
+                loads.incrementAndGet();
+                return new ConcurrentSkipListMap<>(Map.of("renamed", 1));
+            }
+        };
+        Member member1 = new Member("member1", 10);
+        index.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.INSERT, member1, PROPERTY_NAMES, null));
+
+        member1.setUsername("renamed");
+        index.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.UPDATE, member1, PROPERTY_NAMES, null));
+        index.onMemberBulkChanged(new MemberBulkChangedEvent(3));
+        index.onMemberBulkChanged(new MemberBulkChangedEvent(3));
+        assertThat(loads.get()).isZero(); // 변경을 받을 때는 다시 만들지 않는다.
+
+        assertThat(index.suggest("member", 10)).isEmpty(); // 이전 username이 남지 않음
+        assertThat(index.suggest("ren", 10)).containsExactly("renamed");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedRebuildStaysStale() {
+        AtomicInteger loads = new AtomicInteger();
+        UsernameSuggestIndex index = new UsernameSuggestIndex(null, null, 3) {
+            @Override
+            ConcurrentSkipListMap<String, Integer> load() {
+                if (loads.incrementAndGet() == 1) {
+                    throw new IllegalStateException("db down");
+                }
+                return new ConcurrentSkipListMap<>(Map.of("member1", 1));
+            }
+        };
+        index.onMemberBulkChanged(new MemberBulkChangedEvent(3));
+
+        assertThatThrownBy(() -> index.suggest("member", 10)).isInstanceOf(IllegalStateException.class);
+        assertThat(index.suggest("member", 10)).containsExactly("member1"); // 다음 조회에서 다시 시도
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void changeDuringRebuildRebuildsAgain() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        UsernameSuggestIndex index = new UsernameSuggestIndex(null, null, 3) {
+            @Override
+            ConcurrentSkipListMap<String, Integer> load() {
+                if (loads.incrementAndGet() == 1) { // late가 커밋되기 전의 스냅샷
+                    loading.countDown();
+                    await(committed);
+                    return new ConcurrentSkipListMap<>(Map.of("member1", 1));
+                }
+                return new ConcurrentSkipListMap<>(Map.of("member1", 1, "late", 1));
+            }
+        };
+
+        Thread rebuild = new Thread(index::rebuild);
+        rebuild.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        index.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.INSERT, new Member("late", 10), PROPERTY_NAMES, null));
+        committed.countDown();
+        rebuild.join(5000);
+
+        assertThat(index.suggest("late", 10)).containsExactly("late"); // 바뀐 맵에 빠진 변경 -> 다시 만든다.
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Member insert(String username) {
+        Member member = new Member(username, 10);
+        index.onMemberEntityChanged(new MemberEntityChange(MemberEntityChange.Type.INSERT, member, PROPERTY_NAMES, null));
+        return member;
+    }
+}
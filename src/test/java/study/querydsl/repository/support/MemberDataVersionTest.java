@@ -0,0 +1,42 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberDataVersionTest {
+    MemberDataVersion dataVersion = new MemberDataVersion();
+
+    @Test
+    void sameParamsSameEtag() {
+        assertThat(dataVersion.etag("v2", condition("member1"), PageRequest.of(0, 10)))
+                .isEqualTo(dataVersion.etag("v2", condition("member1"), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void hashCollisionDifferentEtag() {
+        // "Aa"와 "BB"는 String.hashCode가 같다.
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        assertThat(dataVersion.etag("v2", condition("Aa"), PageRequest.of(0, 10)))
+                .isNotEqualTo(dataVersion.etag("v2", condition("BB"), PageRequest.of(0, 10)));
+
+        // 파라미터 경계가 달라도 다른 ETag
+        assertThat(dataVersion.etag("ab", "c")).isNotEqualTo(dataVersion.etag("a", "bc"));
+    }
+
+    @Test
+    void changeBumpsEtag() {
+        String before = dataVersion.etag("v2", condition("member1"), PageRequest.of(0, 10));
+        dataVersion.onMemberDataChanged();
+
+        assertThat(dataVersion.etag("v2", condition("member1"), PageRequest.of(0, 10))).isNotEqualTo(before);
+    }
+
+    private static MemberSearchCondition condition(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+}
@@ -0,0 +1,164 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.monitor.SqlStatementCounter;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 별도 커넥션에서 count를 실행하므로 @Transactional 없이 (읽기/쓰기 트랜잭션 안에서는 동시에 실행하지 않는다)
+// hikari pool을 동시에 호출하는 스레드 수(CALLERS)와 같게 줄여서 커넥션이 모두 사용 중인 상황을 만든다.
+@SpringBootTest(properties = {
+        "member.search.parallel-count.enabled=true",
+        "member.search.parallel-count.timeout=1s",
+        "spring.datasource.hikari.maximum-pool-size=" + ParallelCountExecutorTest.CALLERS})
+class ParallelCountExecutorTest {
+    static final int CALLERS = 2;
+
+    @Autowired ParallelCountExecutor parallelCount;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    AtomicInteger parallelCounts = new AtomicInteger();
+    AtomicInteger sequentialCounts = new AtomicInteger();
+
+    @Test
+    void shortFirstPageIssuesNoCount() {
+        try (ParallelCountExecutor.PendingCount total = parallelCount.submit(PageRequest.of(0, 10),
+                countEm -> (long) parallelCounts.incrementAndGet(), () -> sequentialCounts.incrementAndGet())) {
+            Page<String> page = PageableExecutionUtils.getPage(List.of("member1"), PageRequest.of(0, 10), total);
+            assertThat(page.getTotalElements()).isEqualTo(1);
+        }
+
+        assertThat(parallelCounts.get()).isZero(); // 첫 페이지는 미리 보내지 않는다.
+        assertThat(sequentialCounts.get()).isZero();
+    }
+
+    @Test
+    void shortFirstPageIssuesNoCountQuery() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("parallel-count-none"); // 다른 테스트의 캐시와 겹치지 않는 조건
+
+        long before = SqlStatementCounter.current();
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(SqlStatementCounter.current() - before).isEqualTo(1); // content query만
+    }
+
+    @Test
+    void unusedCountIsCancelled() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (ParallelCountExecutor.PendingCount total = parallelCount.submit(PageRequest.of(3, 10), countEm -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await(); // 끝나지 않는 count
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 0L;
+        }, () -> sequentialCounts.incrementAndGet())) {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // 마지막 페이지 -> getPage는 count를 호출하지 않는다.
+            Page<String> page = PageableExecutionUtils.getPage(List.of("member31"), PageRequest.of(3, 10), total);
+            assertThat(page.getTotalElements()).isEqualTo(31);
+        }
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sequentialCounts.get()).isZero();
+    }
+
+    @Test
+    void usedCountIsJoined() {
+        List<String> fullPage = Collections.nCopies(10, "member");
+
+        try (ParallelCountExecutor.PendingCount total = parallelCount.submit(PageRequest.of(1, 10), countEm -> {
+            assertThat(Thread.currentThread().getName()).startsWith("parallel-count-");
+            return 42L;
+        }, () -> sequentialCounts.incrementAndGet())) {
+            Page<String> page = PageableExecutionUtils.getPage(fullPage, PageRequest.of(1, 10), total);
+            assertThat(page.getTotalElements()).isEqualTo(42);
+        }
+
+        assertThat(sequentialCounts.get()).isZero();
+    }
+
+    @Test
+    void timedOutCountFallsBackToSequential() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (ParallelCountExecutor.PendingCount total = parallelCount.submit(PageRequest.of(1, 10), countEm -> {
+            try {
+                new CountDownLatch(1).await(); // 커넥션을 얻지 못해 끝나지 않는 count
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 0L;
+        }, () -> 42L)) {
+            assertThat(total.getAsLong()).isEqualTo(42); // timeout(1s) 후 호출한 스레드에서 실행
+        }
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void exhaustedPoolRunsSequential() throws Exception {
+        // 모든 커넥션을 요청 스레드가 가진 채로 count를 요청한다.
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        CyclicBarrier allConnected = new CyclicBarrier(CALLERS);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            List<Future<Long>> totals = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setUsername("parallel-count-exhausted-" + i); // 캐시와 겹치지 않는 조건
+                totals.add(callers.submit(() -> readOnlyTx.execute(status -> {
+                    memberRepository.count(); // 커넥션 확보
+                    await(allConnected);
+                    // 빈 두 번째 페이지 -> count 필요
+                    return memberRepository.searchPageComplex(condition, PageRequest.of(1, 10)).getTotalElements();
+                })));
+            }
+
+            for (Future<Long> total : totals) {
+                // hikari connection-timeout(30s)까지 기다리지 않고 같은 커넥션으로 count
+                assertThat(total.get(10, TimeUnit.SECONDS)).isZero();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}